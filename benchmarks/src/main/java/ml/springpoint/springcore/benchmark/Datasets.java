@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.benchmark;
+
+import ml.springpoint.springcore.json.GsonFactory;
+import ml.springpoint.springcore.json.JsonBinary;
+import ml.springpoint.springcore.json.JsonIO;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates the data files the benchmarks load and save. The data looks like what
+ * our plugins keep per player: a name, a few numbers, a list of homes and some flags.
+ *
+ * @author SirFaizdat
+ */
+public class Datasets {
+
+    /**
+     * Roughly the amount of entries that make up a megabyte of pretty printed JSON
+     */
+    public static final int ENTRIES_PER_MB = 3500;
+
+    private Datasets() {
+    }
+
+    /**
+     * Generates the same entries every time for the same size
+     *
+     * @param entries The amount of players
+     */
+    public static Map<String, Object> generate(int entries) {
+        Random random = new Random(entries);
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            Map<String, Object> player = new LinkedHashMap<>();
+            player.put("name", "Player" + i);
+            player.put("kills", random.nextInt(10000));
+            player.put("balance", random.nextInt(1000000) / 100.0);
+            player.put("lastSeen", 1400000000000L + random.nextInt(Integer.MAX_VALUE));
+            List<Object> homes = new ArrayList<>();
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                homes.add("world," + random.nextInt(10000) + ',' + random.nextInt(256) + ',' + random.nextInt(10000));
+            }
+            player.put("homes", homes);
+            Map<String, Object> flags = new LinkedHashMap<>();
+            flags.put("pvp", random.nextBoolean());
+            flags.put("fly", random.nextBoolean());
+            player.put("flags", flags);
+            data.put(new UUID(random.nextLong(), random.nextLong()).toString(), player);
+        }
+        return data;
+    }
+
+    /**
+     * Writes entries to a temporary file that is deleted when the JVM exits
+     *
+     * @param entries The entries to write
+     * @param binary  true to write them in the format of {@link JsonBinary}, false for pretty printed JSON
+     */
+    public static File write(Map<String, Object> entries, boolean binary) throws IOException {
+        File file = File.createTempFile("springcore-benchmark", binary ? ".bin" : ".json");
+        file.deleteOnExit();
+        if (binary) {
+            JsonIO.writeAtomically(file, JsonBinary.encode(entries));
+        } else {
+            JsonIO.writeAtomically(file, GsonFactory.getPrettyGson().toJson(entries));
+        }
+        System.out.println(String.format("Wrote %d entries to %s (%.1fMB).", entries.size(), file.getName(),
+                file.length() / (1024.0 * 1024.0)));
+        return file;
+    }
+
+}
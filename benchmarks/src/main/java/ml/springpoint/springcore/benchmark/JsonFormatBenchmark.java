@@ -0,0 +1,95 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.benchmark;
+
+import ml.springpoint.springcore.json.GsonFactory;
+import ml.springpoint.springcore.json.JsonBinary;
+import ml.springpoint.springcore.json.JsonIO;
+import ml.springpoint.springcore.json.JsonLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load and save times of a multi-megabyte JsonConfig file in pretty printed JSON
+ * and in the binary format of {@link JsonBinary}. Saving goes through the same
+ * encoding and atomic write as JsonConfig. Divide the file sizes printed during
+ * the setup by the scores to get the throughput.
+ * <pre>java -cp target/benchmarks.jar:../libs/spigot.jar org.openjdk.jmh.Main JsonFormatBenchmark</pre>
+ *
+ * @author SirFaizdat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class JsonFormatBenchmark {
+
+    @Param({"5", "25"})
+    public int megabytes;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Map<String, Object> entries;
+    private File input;
+    private File output;
+
+    @Setup
+    public void setup() throws IOException {
+        entries = Datasets.generate(megabytes * Datasets.ENTRIES_PER_MB);
+        input = Datasets.write(entries, isBinary());
+        output = File.createTempFile("springcore-benchmark", ".out");
+        output.deleteOnExit();
+    }
+
+    private boolean isBinary() {
+        return format.equals("binary");
+    }
+
+    @Benchmark
+    public Map<String, Object> load() throws IOException {
+        return JsonLoader.load(input);
+    }
+
+    @Benchmark
+    public File save() throws IOException {
+        ByteBuffer contents = isBinary() ? JsonBinary.encode(entries)
+                : ByteBuffer.wrap(GsonFactory.getPrettyGson().toJson(entries).getBytes(StandardCharsets.UTF_8));
+        JsonIO.writeAtomically(output, contents);
+        return output;
+    }
+
+}
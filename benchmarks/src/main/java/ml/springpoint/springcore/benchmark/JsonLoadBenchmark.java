@@ -0,0 +1,109 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.benchmark;
+
+import ml.springpoint.springcore.json.GsonFactory;
+import ml.springpoint.springcore.json.JsonLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load time and peak heap of 10MB and 100MB JSON configurations, read by the
+ * streaming {@link JsonLoader} and by the Gson tree JsonConfig used before it.
+ * Every load is measured on its own, and the summed peaks of the heap pools
+ * during it are printed after it. The fork gets enough heap for the Gson tree:
+ * <pre>java -cp target/benchmarks.jar:../libs/spigot.jar org.openjdk.jmh.Main JsonLoadBenchmark</pre>
+ *
+ * @author SirFaizdat
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class JsonLoadBenchmark {
+
+    @Param({"10", "100"})
+    public int megabytes;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Datasets.write(Datasets.generate(megabytes * Datasets.ENTRIES_PER_MB), false);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println(String.format("Peak heap: %.1fMB", peak / (1024.0 * 1024.0)));
+    }
+
+    @Benchmark
+    public Map<String, Object> streaming() throws IOException {
+        return JsonLoader.load(file);
+    }
+
+    // What JsonConfig#load did before the streaming loader, but closing the reader
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> gsonTree() throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return GsonFactory.getCompactGson().fromJson(reader, HashMap.class);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The allocations of building the arguments of a dispatched command. 'copied' does
+ * what dispatching used to do: split the resolved label to find the depth, copy the
+ * arguments and build the dotted label. 'view' is the current {@link CommandArgs}, and
+ * 'viewWithArray' is a handler that asks it for the whole array. All of them read an
+ * argument the way a handler would. Run it with the GC profiler and
+ * compare gc.alloc.rate.norm, the bytes allocated per dispatch:
+ * <pre>java -cp target/benchmarks.jar:../libs/spigot.jar org.openjdk.jmh.Main CommandArgsBenchmark -prof gc</pre>
+ * This is in the package of the framework since the constructor of CommandArgs is protected.
+ *
+ * @author SirFaizdat
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CommandArgsBenchmark {
+
+    private String label = "shop";
+    private String resolved = "shop.buy";
+    private String[] args = {"buy", "diamond", "64"};
+    private int depth = 1; // CommandNode#getDepth() of 'shop.buy'
+
+    @Benchmark
+    public String copied() {
+        int subCommand = resolved.split("\\.").length - 1;
+        String[] modArgs = new String[args.length - subCommand];
+        System.arraycopy(args, subCommand, modArgs, 0, args.length - subCommand);
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(label);
+        for (int x = 0; x < subCommand; x++) {
+            buffer.append(".").append(args[x]);
+        }
+        String cmdLabel = buffer.toString();
+        return cmdLabel.isEmpty() ? null : modArgs[0];
+    }
+
+    @Benchmark
+    public String view() {
+        CommandArgs commandArgs = new CommandArgs(null, null, null, label, args, depth);
+        return commandArgs.getArgs(0);
+    }
+
+    @Benchmark
+    public String viewWithArray() {
+        CommandArgs commandArgs = new CommandArgs(null, null, null, label, args, depth);
+        return commandArgs.getArgs()[0];
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates a CommandRegistry for every class with Command or Completer methods, so that
+ * CommandFramework does not have to scan the class at runtime. The generated registry calls the
+ * methods directly rather than through reflection.
+ * <p/>
+ * To use it, add springcore-processor to your plugin's dependencies with the provided scope.
+ * Classes that were not compiled with the processor are still registered through reflection.
+ * <p/>
+ * This processor does not depend on SpringCore itself, the annotations are matched by name.
+ *
+ * @author SirFaizdat
+ */
+@SupportedAnnotationTypes({CommandProcessor.COMMAND, CommandProcessor.COMPLETER})
+public class CommandProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "ml.springpoint.springcore.command";
+    static final String COMMAND = PACKAGE + ".Command";
+    static final String COMPLETER = PACKAGE + ".Completer";
+    static final String COMMAND_ARGS = PACKAGE + ".CommandArgs";
+    static final String COMPLETION_SOURCE = PACKAGE + ".CompletionSource";
+    static final String SUFFIX = "_CommandRegistry";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    types.add((TypeElement) element.getEnclosingElement());
+                }
+            }
+        }
+        for (TypeElement type : types) {
+            if (canGenerate(type)) {
+                generate(type);
+            }
+        }
+        return false; // Leave the annotations for anyone else interested
+    }
+
+    // > Checks
+
+    private boolean canGenerate(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.ENUM) {
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false; // Only the exact class of a registered object is looked up
+        }
+        Element element = type;
+        while (element instanceof TypeElement) {
+            TypeElement enclosing = (TypeElement) element;
+            if (enclosing.getNestingKind() != NestingKind.TOP_LEVEL && enclosing.getNestingKind() != NestingKind.MEMBER) {
+                return false;
+            }
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                warn(type, "Can't generate a command registry for a private class, it will be registered through reflection.");
+                return false;
+            }
+            element = enclosing.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private boolean startsWithCommandArgs(List<? extends VariableElement> parameters) {
+        return !parameters.isEmpty() && erasure(parameters.get(0).asType()).equals(COMMAND_ARGS);
+    }
+
+    private AnnotationMirror getAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private void warn(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    // > Generation
+
+    private void generate(TypeElement type) {
+        String typeName = type.getQualifiedName().toString();
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String registryName = binaryName.replace('$', '_') + SUFFIX;
+        String simpleName = packageName.isEmpty() ? registryName : registryName.substring(packageName.length() + 1);
+
+        List<String> registrations = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            boolean command = getAnnotation(method, COMMAND) != null;
+            boolean completer = !command && getAnnotation(method, COMPLETER) != null;
+            if (!command && !completer) {
+                continue;
+            }
+            if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+                warn(method, "Command and completer methods must be public, this one will not be registered.");
+                continue;
+            }
+            // Commands may have typed parameters after their CommandArgs, completers may not.
+            if (!startsWithCommandArgs(method.getParameters()) || (completer && method.getParameters().size() > 1)) {
+                warn(method, "Unexpected method arguments, this method will not be registered.");
+                continue;
+            }
+            if (completer && !erasure(method.getReturnType()).equals("java.util.List")
+                    && !erasure(method.getReturnType()).equals(COMPLETION_SOURCE)) {
+                warn(method, "Unexpected return type, this tab completer will not be registered.");
+                continue;
+            }
+            registrations.add(registration(typeName, method, command));
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by ").append(getClass().getName()).append(". Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n");
+        }
+        source.append('\n');
+        // Parameters are cast to their erasure, which is unchecked for generic types
+        source.append("@SuppressWarnings(\"unchecked\")\n");
+        source.append("public final class ").append(simpleName).append(" implements ")
+                .append(PACKAGE).append(".CommandRegistry<").append(typeName).append("> {\n\n");
+        source.append("    @Override\n");
+        source.append("    public void register(final ").append(typeName).append(" obj, ")
+                .append(PACKAGE).append(".CommandFramework framework)\n");
+        source.append("            throws ReflectiveOperationException {\n");
+        for (String registration : registrations) {
+            source.append(registration);
+        }
+        source.append("    }\n\n}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(registryName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write the command registry " + registryName + ": " + e.getMessage(), type);
+        }
+    }
+
+    private String registration(String typeName, ExecutableElement method, boolean command) {
+        String name = method.getSimpleName().toString();
+        String target = method.getModifiers().contains(Modifier.STATIC) ? typeName : "obj";
+        boolean returns = method.getReturnType().getKind() != TypeKind.VOID;
+        boolean typed = method.getParameters().size() > 1;
+
+        StringBuilder parameterTypes = new StringBuilder();
+        StringBuilder arguments = new StringBuilder();
+        if (typed) {
+            for (int i = 0; i < method.getParameters().size(); i++) {
+                TypeMirror type = method.getParameters().get(i).asType();
+                if (i > 0) {
+                    arguments.append(", ");
+                }
+                parameterTypes.append(", ").append(erasure(type)).append(".class");
+                arguments.append('(').append(boxedErasure(type)).append(") params[").append(i).append(']');
+            }
+        } else {
+            parameterTypes.append(", ").append(COMMAND_ARGS).append(".class");
+            arguments.append("args");
+        }
+
+        StringBuilder code = new StringBuilder();
+        code.append("        framework.").append(command ? "registerCommand" : "registerCompleter")
+                .append("(").append(typeName).append(".class.getMethod(\"").append(name).append("\"")
+                .append(parameterTypes).append("), obj,\n");
+        code.append("                new ").append(PACKAGE).append(typed ? ".TypedInvoker() {\n" : ".CommandInvoker() {\n");
+        code.append("                    @Override\n");
+        if (typed) {
+            code.append("                    public Object invoke(Object[] params) throws Throwable {\n");
+        } else {
+            code.append("                    public Object invoke(").append(COMMAND_ARGS).append(" args) throws Throwable {\n");
+        }
+        String call = target + '.' + name + '(' + arguments + ')';
+        if (returns) {
+            code.append("                        return ").append(call).append(";\n");
+        } else {
+            code.append("                        ").append(call).append(";\n");
+            code.append("                        return null;\n");
+        }
+        code.append("                    }\n");
+        code.append("                });\n");
+        return code.toString();
+    }
+
+    private String boxedErasure(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return erasure(type);
+    }
+
+}
@@ -17,22 +17,59 @@
 
 package ml.springpoint.springcore;
 
+import ml.springpoint.springcore.command.CommandFeature;
+import ml.springpoint.springcore.command.CommandStats;
+import ml.springpoint.springcore.command.PermissionCache;
+import ml.springpoint.springcore.command.PlayerCache;
+import ml.springpoint.springcore.json.JsonIO;
+
 /**
  * @author SirFaizdat
  */
 public class SpringCore extends SpringPlugin {
 
+    private static final long IO_TIMEOUT = 5000L;
+
     private static SpringCore instance;
 
     @Override
     protected boolean enable() {
         instance = this;
-        // All we do in the enable method is add some global messages.
+        // Add the global messages, and the built-in commands.
         getMessages().addDefault("no-permission", "&cError: &7You need the permission &c%s&7 to do that.");
         getMessages().addDefault("must-be-player", "&cError: &7You must be in-game to use this command.");
         getMessages().addDefault("incorrect-usage", "&cError: &7Incorrect usage. Use the command like this: &c%s");
         getMessages().addDefault("command-not-found", "&cError: &7That command does not exist or is not handled.");
-        return getMessages().load();
+        getMessages().addDefault("command-suggestion", "&7Did you mean &3%s&7?");
+        getMessages().addDefault("invalid-argument", "&cError: &c%s&7 is not a valid %s.");
+        getMessages().addDefault("command-cooldown", "&cError: &7You must wait &c%s&7 seconds before using that command again.");
+        getMessages().addDefault("command-unavailable", "&cError: &7That command is not available right now.");
+        getMessages().addDefault("command-busy", "&cError: &7The server is busy, please try that command again in a moment.");
+        getMessages().addDefault("command-stats-line", "&3%s &7/%s&8: &3%d&7 calls, &c%d&7 errors, &e%d&7 denied, &3%s&7ms avg, &3%s&7ms p99, &3%s&7ms max");
+        getMessages().addDefault("command-stats-pool", "&3%s &7pool&8: &3%d&7/&3%d&7 threads busy, &3%d&7/&3%d&7 queued, &3%d&7 completed, &c%d&7 rejected");
+        getMessages().addDefault("command-stats-permissions", "&7Permission cache&8: &3%d&7 hits, &3%d&7 misses, &3%s%%&7 hit rate");
+        getMessages().addDefault("command-stats-disabled", "&7Command metrics are off, use &3/springcore commands stats on&7 to record them.");
+        getMessages().addDefault("command-stats-toggled", "&7Command metrics are now &3%s&7.");
+        getMessages().addDefault("command-stats-reset", "&7Command metrics have been reset.");
+        getMessages().addDefault("command-stats-dumped", "&7Command metrics were written to &3%s&7.");
+        if (!getMessages().load()) {
+            return false;
+        }
+
+        // The caches are shared by every plugin, so they follow SpringCore rather than the first plugin to use them
+        PlayerCache.getInstance().register(this);
+        PermissionCache.getInstance().register(this);
+        use("commands");
+        ((CommandFeature) getFeatureManager().get("commands")).registerCommands(new CommandStats(this));
+        return true;
+    }
+
+    @Override
+    public void onDisable() {
+        super.onDisable();
+        // Stop the JSON IO thread, so that it does not keep this class loader alive after a reload
+        if (!JsonIO.shutdown(IO_TIMEOUT))
+            log("&cError: &7The JSON IO thread did not stop within &c%dms&7.", IO_TIMEOUT);
     }
 
     public static SpringCore get() {
@@ -20,6 +20,7 @@ package ml.springpoint.springcore;
 import ml.springpoint.springcore.feature.FeatureManager;
 import ml.springpoint.springcore.json.JsonConfig;
 import ml.springpoint.springcore.json.JsonMessages;
+import ml.springpoint.springcore.json.JsonStore;
 import ml.springpoint.springcore.utils.Txt;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -38,6 +39,8 @@ import java.lang.reflect.Method;
  */
 public class SpringPlugin extends JavaPlugin {
 
+    private static final long SAVE_TIMEOUT = 5000L;
+
     private FeatureManager featureManager;
     private String logPrefix;
     private JsonConfig config;
@@ -45,6 +48,7 @@ public class SpringPlugin extends JavaPlugin {
 
     // > Enable
 
+    @Override
     public void onEnable() {
         long enableStartTime = System.currentTimeMillis();
         setLogPrefix("&8[&2" + getDescription().getName() + "&8]&r"); // Default log prefix
@@ -84,6 +88,26 @@ public class SpringPlugin extends JavaPlugin {
         return true;
     }
 
+    // > Disable
+
+    @Override
+    public void onDisable() {
+        disable();
+        // Unregister the commands and stop the background tasks of every feature in use
+        if (featureManager != null) featureManager.disable();
+        // Write any configuration saves and store changes that are still queued
+        JsonStore.closeAll(this);
+        if (!JsonConfig.flushAll(SAVE_TIMEOUT))
+            log("&cError: &7Not every configuration could be saved within &c%dms&7.", SAVE_TIMEOUT);
+    }
+
+    /**
+     * Called when the plugin is disabled, before the features are de-initialized.
+     * Save anything you need to here.
+     */
+    protected void disable() {
+    }
+
     /**
      * Initialize parts of the API for use.
      * This allows you to only use what you want, without bloating
@@ -0,0 +1,186 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import ml.springpoint.springcore.SpringCore;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command Framework - ArgumentBinder <br>
+ * Binds the arguments of a command to the typed parameters of its {@link Command} method,
+ * ie. <code>public void give(CommandArgs args, Player target, int amount, @Optional double price)</code>.
+ * The parser chain is put together once when the command is registered, and the sender is
+ * told what went wrong if an argument is missing or invalid, so the method itself never
+ * has to check its arguments.
+ * <p/>
+ * {@link Optional} parameters must come after the required ones. A <code>String[]</code>
+ * as the last parameter receives all of the remaining arguments.
+ *
+ * @author SirFaizdat
+ */
+public class ArgumentBinder {
+
+    private static final Map<Class<?>, Object> PRIMITIVE_DEFAULTS = new HashMap<>();
+
+    static {
+        PRIMITIVE_DEFAULTS.put(int.class, 0);
+        PRIMITIVE_DEFAULTS.put(long.class, 0L);
+        PRIMITIVE_DEFAULTS.put(double.class, 0D);
+        PRIMITIVE_DEFAULTS.put(float.class, 0F);
+        PRIMITIVE_DEFAULTS.put(boolean.class, false);
+    }
+
+    private final ArgumentParser<?>[] parsers;
+    private final Object[] defaults;
+    private final int required;
+    private final boolean rest;
+    private final String usage;
+
+    private ArgumentBinder(ArgumentParser<?>[] parsers, Object[] defaults, int required, boolean rest, String usage) {
+        this.parsers = parsers;
+        this.defaults = defaults;
+        this.required = required;
+        this.rest = rest;
+        this.usage = usage;
+    }
+
+    /**
+     * Creates the binder for a method that takes a {@link CommandArgs} followed by typed parameters.
+     *
+     * @param m The method
+     * @return The binder, or null if one of the parameters can't be bound
+     */
+    public static ArgumentBinder create(Method m) {
+        Class<?>[] types = m.getParameterTypes();
+        Annotation[][] annotations = m.getParameterAnnotations();
+        if (types.length < 2 || types[0] != CommandArgs.class) {
+            return null;
+        }
+
+        int typed = types.length - 1;
+        ArgumentParser<?>[] parsers = new ArgumentParser<?>[typed];
+        Object[] defaults = new Object[typed];
+        int required = 0;
+        boolean rest = false;
+        StringBuilder usage = new StringBuilder();
+        for (int i = 0; i < typed; i++) {
+            Class<?> type = types[i + 1];
+            Optional optional = getOptional(annotations[i + 1]);
+            if (usage.length() > 0) {
+                usage.append(' ');
+            }
+
+            if (type == String[].class && i == typed - 1) {
+                rest = true;
+                usage.append("[text...]");
+                break;
+            }
+
+            ArgumentParser<?> parser = ArgumentParsers.get(type);
+            if (parser == null) {
+                System.out.println("Unable to register command " + m.getName() + ". No parser for "
+                        + type.getSimpleName());
+                return null;
+            }
+            parsers[i] = parser;
+
+            if (optional == null) {
+                if (required != i) {
+                    System.out.println("Unable to register command " + m.getName()
+                            + ". Optional parameters must come last");
+                    return null;
+                }
+                required++;
+                usage.append('<').append(parser.getName()).append('>');
+                continue;
+            }
+
+            if (optional.value().isEmpty()) {
+                defaults[i] = PRIMITIVE_DEFAULTS.get(type);
+            } else {
+                defaults[i] = parser.parse(optional.value());
+                if (defaults[i] == null) {
+                    System.out.println("Unable to register command " + m.getName() + ". Invalid default value '"
+                            + optional.value() + "'");
+                    return null;
+                }
+            }
+            usage.append('[').append(parser.getName()).append(']');
+        }
+        return new ArgumentBinder(parsers, defaults, required, rest, usage.toString());
+    }
+
+    private static Optional getOptional(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Optional) {
+                return (Optional) annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the usage of the typed parameters
+     *
+     * @return Something like '&lt;player&gt; &lt;number&gt; [number]'
+     */
+    public String getUsage() {
+        return usage;
+    }
+
+    /**
+     * Parses the arguments into the parameters of the method. If an argument is missing
+     * or invalid, the sender is sent an error message.
+     *
+     * @param args         The arguments of the command
+     * @param commandUsage The usage shown to the sender if arguments are missing
+     * @return The parameters to invoke the method with, or null if the arguments are not valid
+     */
+    public Object[] bind(CommandArgs args, String commandUsage) {
+        if (args.length() < required) {
+            SpringCore.get().getMessages().send(args.getSender(), "incorrect-usage", commandUsage);
+            return null;
+        }
+
+        Object[] params = new Object[parsers.length + 1];
+        params[0] = args;
+        for (int i = 0; i < parsers.length; i++) {
+            if (rest && i == parsers.length - 1) {
+                params[i + 1] = i < args.length() ? args.getArgs(i, args.length()) : new String[0];
+                break;
+            }
+            if (i >= args.length()) {
+                params[i + 1] = defaults[i];
+                continue;
+            }
+            String input = args.getArgs(i);
+            Object value = parsers[i].parse(input);
+            if (value == null) {
+                SpringCore.get().getMessages().send(args.getSender(), "invalid-argument", input, parsers[i].getName());
+                return null;
+            }
+            params[i + 1] = value;
+        }
+        return params;
+    }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+/**
+ * Command Framework - ArgumentParser <br>
+ * Turns a single argument into the type of a {@link Command} method parameter.
+ * Register your own parsers with {@link ArgumentParsers#register(Class, ArgumentParser)}.
+ *
+ * @param <T> The type that this parser produces
+ * @author SirFaizdat
+ */
+public interface ArgumentParser<T> {
+
+    /**
+     * Parses an argument. Implementations should not throw exceptions for bad input,
+     * as this is called for every command that is dispatched.
+     *
+     * @param input The argument typed by the sender
+     * @return The parsed value, or null if the input is not valid
+     */
+    T parse(String input);
+
+    /**
+     * Gets the name of the argument used in the generated usage and error messages.
+     *
+     * @return Something like 'player' or 'number'
+     */
+    String getName();
+
+}
@@ -0,0 +1,252 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Command Framework - ArgumentParsers <br>
+ * The {@link ArgumentParser}s used for typed {@link Command} parameters. Parsers for
+ * strings, numbers, booleans, players, worlds and every enum are built in.
+ *
+ * @author SirFaizdat
+ */
+public final class ArgumentParsers {
+
+    private static final Map<Class<?>, ArgumentParser<?>> parsers = new ConcurrentHashMap<>();
+
+    static {
+        register(String.class, new SimpleParser<String>("text") {
+            @Override
+            public String parse(String input) {
+                return input;
+            }
+        });
+        ArgumentParser<Integer> integerParser = new SimpleParser<Integer>("number") {
+            @Override
+            public Integer parse(String input) {
+                Long value = parseLong(input, Integer.MIN_VALUE, Integer.MAX_VALUE);
+                return value == null ? null : value.intValue();
+            }
+        };
+        register(int.class, integerParser);
+        register(Integer.class, integerParser);
+        ArgumentParser<Long> longParser = new SimpleParser<Long>("number") {
+            @Override
+            public Long parse(String input) {
+                return parseLong(input, Long.MIN_VALUE + 1, Long.MAX_VALUE);
+            }
+        };
+        register(long.class, longParser);
+        register(Long.class, longParser);
+        ArgumentParser<Double> doubleParser = new SimpleParser<Double>("number") {
+            @Override
+            public Double parse(String input) {
+                return isDecimal(input) ? Double.valueOf(input) : null;
+            }
+        };
+        register(double.class, doubleParser);
+        register(Double.class, doubleParser);
+        ArgumentParser<Float> floatParser = new SimpleParser<Float>("number") {
+            @Override
+            public Float parse(String input) {
+                return isDecimal(input) ? Float.valueOf(input) : null;
+            }
+        };
+        register(float.class, floatParser);
+        register(Float.class, floatParser);
+        ArgumentParser<Boolean> booleanParser = new SimpleParser<Boolean>("true/false") {
+            @Override
+            public Boolean parse(String input) {
+                switch (input.toLowerCase(Locale.ENGLISH)) {
+                    case "true":
+                    case "yes":
+                    case "on":
+                        return true;
+                    case "false":
+                    case "no":
+                    case "off":
+                        return false;
+                    default:
+                        return null;
+                }
+            }
+        };
+        register(boolean.class, booleanParser);
+        register(Boolean.class, booleanParser);
+        register(Player.class, new SimpleParser<Player>("player") {
+            @Override
+            public Player parse(String input) {
+                return PlayerCache.getInstance().getPlayer(input);
+            }
+        });
+        register(World.class, new SimpleParser<World>("world") {
+            @Override
+            public World parse(String input) {
+                return Bukkit.getWorld(input);
+            }
+        });
+    }
+
+    private ArgumentParsers() {
+    }
+
+    /**
+     * Registers a parser for a type. Commands that have already been registered keep
+     * the parser they were registered with.
+     *
+     * @param type   The parameter type
+     * @param parser The parser
+     */
+    public static <T> void register(Class<T> type, ArgumentParser<T> parser) {
+        parsers.put(type, parser);
+    }
+
+    /**
+     * Gets the parser for a type.
+     *
+     * @param type The parameter type
+     * @return The parser, or null if the type is not supported
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static ArgumentParser<?> get(Class<?> type) {
+        ArgumentParser<?> parser = parsers.get(type);
+        if (parser == null && type.isEnum()) {
+            parser = new EnumParser(type);
+            parsers.put(type, parser);
+        }
+        return parser;
+    }
+
+    // > Parsing helpers
+    // These never throw, unlike the parse methods of the boxed types.
+
+    static Long parseLong(String input, long min, long max) {
+        int length = input.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+            negative = input.charAt(0) == '-';
+            i = 1;
+        }
+        if (i == length) {
+            return null;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = input.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        if (negative) {
+            value = -value;
+        }
+        return value < min || value > max ? null : value;
+    }
+
+    static boolean isDecimal(String input) {
+        int length = input.length();
+        int i = 0;
+        if (length > 0 && (input.charAt(0) == '-' || input.charAt(0) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        while (i < length && isDigit(input.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < length && input.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(input.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i < length && (input.charAt(i) == 'e' || input.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (input.charAt(i) == '-' || input.charAt(i) == '+')) {
+                i++;
+            }
+            int exponent = 0;
+            while (i < length && isDigit(input.charAt(i))) {
+                i++;
+                exponent++;
+            }
+            if (exponent == 0) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // > Parsers
+
+    private abstract static class SimpleParser<T> implements ArgumentParser<T> {
+
+        private final String name;
+
+        SimpleParser(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    private static class EnumParser<E extends Enum<E>> implements ArgumentParser<E> {
+
+        private final Map<String, E> constants = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final String name;
+
+        EnumParser(Class<E> type) {
+            for (E constant : type.getEnumConstants()) {
+                constants.put(constant.name(), constant);
+            }
+            this.name = type.getSimpleName().toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        public E parse(String input) {
+            return constants.get(input);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+}
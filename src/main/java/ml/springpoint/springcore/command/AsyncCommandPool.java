@@ -0,0 +1,148 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command Framework - AsyncCommandPool <br>
+ * A bounded pool of worker threads that {@link Command#async()} commands run on. When
+ * both the threads and the queue are full, new commands are rejected rather than queued,
+ * and the sender is told to try again.
+ *
+ * @author SirFaizdat
+ */
+public class AsyncCommandPool {
+
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Creates a new pool.
+     *
+     * @param name          The name of the pool, used in the thread names
+     * @param threads       The maximum amount of commands running at the same time
+     * @param queueCapacity The maximum amount of commands waiting for a thread
+     */
+    public AsyncCommandPool(final String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "SpringCore Command Pool " + name + " #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a task on the pool.
+     *
+     * @param task The task
+     * @return false if the pool is saturated and the task was rejected
+     */
+    public boolean submit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Stops accepting tasks. Tasks that are already queued will still be run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // > Metrics
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the amount of tasks waiting for a thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Gets the amount of threads that are currently running a task
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getMaxThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Gets the approximate amount of tasks that have finished running
+     */
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Gets the amount of tasks that were rejected because the pool was saturated
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the metrics as plain values, like {@link CommandMetrics#toMap()}
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("active", getActiveCount());
+        map.put("max-threads", getMaxThreads());
+        map.put("queue-depth", getQueueDepth());
+        map.put("queue-capacity", getQueueCapacity());
+        map.put("completed", getCompletedCount());
+        map.put("rejected", getRejectedCount());
+        return map;
+    }
+
+}
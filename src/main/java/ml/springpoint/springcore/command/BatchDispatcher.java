@@ -0,0 +1,167 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Command Framework - BatchDispatcher <br>
+ * Runs the submitted {@link CommandBatch}es of a framework on the server thread,
+ * a few commands every tick until the time budget of the tick is spent. The task
+ * only runs while there are batches left.
+ * <p/>
+ * Batches tend to repeat the same command for many players, so the node of the
+ * previous line is reused when a line starts with the same tokens, instead of
+ * walking the command tree again.
+ *
+ * @author SirFaizdat
+ */
+class BatchDispatcher implements Runnable {
+
+    /**
+     * The default time in milliseconds batches may take up every tick.
+     */
+    static final long DEFAULT_BUDGET = 10L;
+
+    private final CommandFramework framework;
+    private final Queue<CommandBatch> batches = new ConcurrentLinkedQueue<>();
+    private volatile long budget = DEFAULT_BUDGET * 1000000L;
+    private BukkitTask task;
+
+    // The last resolved route
+    private String lastLabel;
+    private String[] lastArgs;
+    private CommandNode lastNode;
+
+    BatchDispatcher(CommandFramework framework) {
+        this.framework = framework;
+    }
+
+    synchronized void submit(CommandBatch batch) {
+        batches.add(batch);
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(framework.getPlugin(), this, 1L, 1L);
+        }
+    }
+
+    void setBudget(long millis) {
+        this.budget = millis * 1000000L;
+    }
+
+    @Override
+    public void run() {
+        long end = System.nanoTime() + budget;
+        CommandBatch batch;
+        while ((batch = batches.peek()) != null) {
+            while (batch.hasNext()) {
+                CommandSender sender = batch.nextSender();
+                dispatch(sender, batch.nextLine());
+                if (System.nanoTime() >= end) {
+                    return; // Out of time, continue next tick
+                }
+            }
+            batches.poll();
+            batch.complete();
+        }
+        stopIfIdle();
+    }
+
+    private synchronized void stopIfIdle() {
+        if (batches.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+            lastLabel = null;
+            lastArgs = null;
+            lastNode = null;
+        }
+    }
+
+    /**
+     * Stops running batches and cancels the futures of the ones that are left.
+     */
+    synchronized void cancel() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        CommandBatch batch;
+        while ((batch = batches.poll()) != null) {
+            batch.cancel();
+        }
+        lastNode = null;
+    }
+
+    private void dispatch(CommandSender sender, String line) {
+        String[] tokens = line.split(" ");
+        String label = tokens[0];
+        String[] args = new String[tokens.length - 1];
+        System.arraycopy(tokens, 1, args, 0, args.length);
+
+        org.bukkit.command.Command command = framework.getBukkitCommand(label);
+        if (command == null || !(command instanceof BukkitCommand) || ((BukkitCommand) command).getExecutor() != framework) {
+            // Not one of ours, let Bukkit find the command
+            try {
+                Bukkit.dispatchCommand(sender, line);
+            } catch (Throwable t) {
+                t.printStackTrace();
+            }
+            return;
+        }
+        if (!((BukkitCommand) command).getPlugin().isEnabled()) {
+            return; // Like BukkitCommand#execute, the commands of a disabled plugin don't run
+        }
+        CommandNode node = resolve(label, args);
+        framework.handleCommand(node, sender, command, label, args);
+    }
+
+    private CommandNode resolve(String label, String[] args) {
+        if (lastNode != null && lastNode.getCommand() != null && label.equalsIgnoreCase(lastLabel)) {
+            int depth = lastNode.getDepth();
+            if (args.length >= depth && samePrefix(args, depth)
+                    && (args.length == depth || lastNode.getChild(args[depth]) == null)) {
+                // Same tokens up to the node, and nothing deeper to go to
+                return lastNode;
+            }
+        }
+        CommandNode node = framework.getCommandTree().resolveCommand(label, args);
+        if (node != null) {
+            lastLabel = label;
+            lastArgs = args;
+            lastNode = node;
+        }
+        return node;
+    }
+
+    private boolean samePrefix(String[] args, int depth) {
+        if (lastArgs.length < depth) {
+            return false;
+        }
+        for (int i = 0; i < depth; i++) {
+            if (!args[i].equalsIgnoreCase(lastArgs[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
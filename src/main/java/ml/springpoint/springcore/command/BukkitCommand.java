@@ -49,6 +49,14 @@ public class BukkitCommand extends org.bukkit.command.Command {
         this.usageMessage = "";
     }
 
+    CommandExecutor getExecutor() {
+        return executor;
+    }
+
+    Plugin getPlugin() {
+        return owningPlugin;
+    }
+
     @Override
     public boolean execute(CommandSender sender, String commandLabel, String[] args) {
         boolean success = false;
@@ -21,13 +21,9 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.AbstractMap;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * Command Framework - BukkitCompleter <br>
@@ -38,39 +34,95 @@ import java.util.Map.Entry;
  */
 public class BukkitCompleter implements TabCompleter {
 
-    private Map<String, Entry<Method, Object>> completers = new HashMap<String, Entry<Method, Object>>();
+    private final CommandFramework framework;
+    private final CommandTree tree;
+
+    public BukkitCompleter(CommandFramework framework) {
+        this.framework = framework;
+        this.tree = framework.getCommandTree();
+    }
 
     public void addCompleter(String label, Method m, Object obj) {
-        completers.put(label, new AbstractMap.SimpleEntry<Method, Object>(m, obj));
+        addCompleter(label, new CompleterHandler(m, obj, CommandInvokers.create(m, obj, false)));
+    }
+
+    CommandFramework getFramework() {
+        return framework;
+    }
+
+    public void addCompleter(String label, CompleterHandler handler) {
+        tree.getOrCreate(label).setCompleter(handler);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String label, String[] args) {
-        for (int i = args.length; i >= 0; i--) {
-            StringBuffer buffer = new StringBuffer();
-            buffer.append(label.toLowerCase());
-            for (int x = 0; x < i; x++) {
-                if (!args[x].equals("") && !args[x].equals(" ")) {
-                    buffer.append("." + args[x].toLowerCase());
-                }
-            }
-            String cmdLabel = buffer.toString();
-            if (completers.containsKey(cmdLabel)) {
-                Entry<Method, Object> entry = completers.get(cmdLabel);
+        CommandNode node = tree.resolveCompleter(label, args);
+        if (node == null) {
+            return null;
+        }
+        CompleterHandler completer = node.getCompleter();
+        CommandArgs commandArgs = new CommandArgs(framework.getPlugin(), sender, command, label, args, node.getDepth());
+        CompletionCache cache = completer.getCache();
+        if (cache == null) {
+            return complete(node, commandArgs);
+        }
+
+        Object key = CompletionCache.getKey(sender);
+        List<String> completions = cache.get(key, args);
+        if (completions != null) {
+            return completions;
+        }
+        if (completer.isAsync()) {
+            completeAsync(node, commandArgs, key, args);
+            return Collections.emptyList(); // Shown from the cache on the next tab press
+        }
+        completions = complete(node, commandArgs);
+        cache.put(key, args, completions);
+        return completions;
+    }
+
+    private void completeAsync(final CommandNode node, final CommandArgs commandArgs, final Object key,
+                               final String[] args) {
+        final CompletionCache cache = node.getCompleter().getCache();
+        if (!cache.startPending(key)) {
+            return;
+        }
+        boolean queued = framework.getAsyncPool("").submit(new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    return (List<String>) entry.getKey().invoke(entry.getValue(),
-                            new CommandArgs(sender, command, label, args, cmdLabel.split("\\.").length - 1));
-                } catch (IllegalArgumentException e) {
-                    e.printStackTrace();
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                } catch (InvocationTargetException e) {
-                    e.printStackTrace();
+                    cache.put(key, args, complete(node, commandArgs));
+                } finally {
+                    cache.stopPending(key);
                 }
             }
+        });
+        if (!queued) {
+            cache.stopPending(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> complete(CommandNode node, CommandArgs commandArgs) {
+        boolean timed = CommandMetrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        boolean failed = false;
+        try {
+            Object completions = node.getCompleter().getInvoker().invoke(commandArgs);
+            if (completions instanceof CompletionSource) {
+                int length = commandArgs.length();
+                return ((CompletionSource) completions).complete(length == 0 ? "" : commandArgs.getArgs(length - 1));
+            }
+            return (List<String>) completions;
+        } catch (Throwable t) {
+            failed = true;
+            t.printStackTrace();
+        } finally {
+            if (timed) {
+                node.getMetrics().recordCompletion(System.nanoTime() - start, failed);
+            }
         }
         return null;
     }
 
-}
\ No newline at end of file
+}
@@ -70,4 +70,31 @@ public @interface Command {
      * Whether or not the command is available to players only
      */
     boolean inGameOnly() default false;
+
+    /**
+     * Whether or not the command is run off of the server thread. Permissions,
+     * inGameOnly and the arguments are still checked on the server thread first.
+     * Use {@link CommandArgs#sync(Runnable)} to get back to the server thread.
+     */
+    boolean async() default false;
+
+    /**
+     * The name of the pool that async commands run on, see
+     * {@link CommandFramework#addAsyncPool(String, int, int)}. Leave this empty
+     * to use the default pool.
+     */
+    String executor() default "";
+
+    /**
+     * The time in milliseconds a player has to wait between uses of the command.
+     * Leave this at 0 for no cooldown. The console is never on a cooldown.
+     */
+    long cooldown() default 0;
+
+    /**
+     * The amount of times the command can be used within one cooldown before the
+     * player has to wait. Uses come back one at a time, every cooldown / rate
+     * milliseconds.
+     */
+    int rate() default 1;
 }
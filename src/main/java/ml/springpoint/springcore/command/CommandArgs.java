@@ -17,8 +17,14 @@
 
 package ml.springpoint.springcore.command;
 
+import org.bukkit.Bukkit;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * Command Framework - CommandArgs <br>
@@ -29,26 +35,29 @@ import org.bukkit.entity.Player;
  */
 public class CommandArgs {
 
-    private CommandSender sender;
-    private org.bukkit.command.Command command;
+    private final Plugin plugin;
+    private final CommandSender sender;
+    private final org.bukkit.command.Command command;
+    private final String baseLabel;
+    private final String[] rawArgs;
+    private final int offset;
     private String label;
     private String[] args;
 
-    protected CommandArgs(CommandSender sender, org.bukkit.command.Command command, String label, String[] args,
-                          int subCommand) {
-        String[] modArgs = new String[args.length - subCommand];
-        System.arraycopy(args, subCommand, modArgs, 0, args.length - subCommand);
-
-        StringBuilder buffer = new StringBuilder();
-        buffer.append(label);
-        for (int x = 0; x < subCommand; x++) {
-            buffer.append(".").append(args[x]);
-        }
-        String cmdLabel = buffer.toString();
+    /**
+     * Creates a view of the arguments after the sub command tokens. Nothing is copied
+     * here; the label and the argument array are only built if the handler asks for them.
+     *
+     * @param subCommand The amount of sub command tokens, see {@link CommandNode#getDepth()}
+     */
+    protected CommandArgs(Plugin plugin, CommandSender sender, org.bukkit.command.Command command, String label,
+                          String[] args, int subCommand) {
+        this.plugin = plugin;
         this.sender = sender;
         this.command = command;
-        this.label = cmdLabel;
-        this.args = modArgs;
+        this.baseLabel = label;
+        this.rawArgs = args;
+        this.offset = subCommand;
     }
 
     /**
@@ -71,15 +80,40 @@ public class CommandArgs {
      * @return Something like 'test.subcommand'
      */
     public String getLabel() {
+        if (label == null) {
+            if (offset == 0) {
+                label = baseLabel;
+            } else {
+                StringBuilder buffer = new StringBuilder(baseLabel);
+                for (int x = 0; x < offset; x++) {
+                    buffer.append('.').append(rawArgs[x]);
+                }
+                label = buffer.toString();
+            }
+        }
         return label;
     }
 
+    // The label and arguments as they were typed, before the sub command tokens were split off
+    String getBaseLabel() {
+        return baseLabel;
+    }
+
+    String[] getRawArgs() {
+        return rawArgs;
+    }
+
     /**
      * Gets all the arguments after the command's label. ie. if the command
      * label was test.subcommand and the arguments were subcommand foo foo, it
-     * would only return 'foo foo' because 'subcommand' is part of the command
+     * would only return 'foo foo' because 'subcommand' is part of the command.
+     * The array is copied from the original arguments on first use, and the same array is
+     * returned afterwards. Use {@link #getArgs(int)} to read single arguments without copying.
      */
     public String[] getArgs() {
+        if (args == null) {
+            args = Arrays.copyOfRange(rawArgs, offset, rawArgs.length);
+        }
         return args;
     }
 
@@ -90,7 +124,24 @@ public class CommandArgs {
      * @return The string at the specified index
      */
     public String getArgs(int index) {
-        return args[index];
+        if (index < 0 || index >= length()) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return rawArgs[offset + index];
+    }
+
+    /**
+     * Gets a copy of a range of the arguments
+     *
+     * @param from The first index, inclusive
+     * @param to   The last index, exclusive
+     * @return The arguments in the range
+     */
+    public String[] getArgs(int from, int to) {
+        if (from < 0 || from > to || to > length()) {
+            throw new ArrayIndexOutOfBoundsException(from < 0 ? from : to);
+        }
+        return Arrays.copyOfRange(rawArgs, offset + from, offset + to);
     }
 
     /**
@@ -99,7 +150,18 @@ public class CommandArgs {
      * @return int length of args
      */
     public int length() {
-        return args.length;
+        return rawArgs.length - offset;
+    }
+
+    /**
+     * Checks whether the sender has a permission through the {@link PermissionCache}.
+     * Use this to filter suggestions in completers, which are called on every key press.
+     *
+     * @param permission The permission node
+     * @return true if the sender has the permission
+     */
+    public boolean hasPermission(String permission) {
+        return PermissionCache.getInstance().hasPermission(sender, permission);
     }
 
     public boolean isPlayer() {
@@ -114,4 +176,31 @@ public class CommandArgs {
         }
     }
 
+    /**
+     * Runs a task on the server thread. Use this from {@link Command#async()} commands
+     * to hand the result back to the server, ie. to teleport the player or to send them a
+     * message built from the results of a database query. If this is already called on
+     * the server thread, the task is run right away.
+     *
+     * @param task The task to run on the server thread
+     */
+    public void sync(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * Calls a task on the server thread and returns its result. Don't wait on the
+     * returned future from the server thread itself, it will never complete.
+     *
+     * @param task The task to call on the server thread
+     * @return A future of the result of the task
+     */
+    public <T> Future<T> callSync(Callable<T> task) {
+        return Bukkit.getScheduler().callSyncMethod(plugin, task);
+    }
+
 }
@@ -0,0 +1,393 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import ml.springpoint.springcore.SpringCore;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command Framework - CommandAuditLog <br>
+ * An append-only log of every command that goes through a framework, see
+ * {@link CommandFramework#setAuditLog(CommandAuditLog)}. Dispatching a command only
+ * puts a record into a bounded, lock-free ring buffer; a background thread formats
+ * the records and writes them to the file in batches.
+ * <p/>
+ * The file is rotated once it grows past its size limit or gets older than its
+ * time limit. Rotated files are renamed to name-yyyyMMdd-HHmmss.log and are never
+ * written to again.
+ * <p/>
+ * Every record is one line of tab separated fields. Tabs, line breaks and
+ * backslashes that were typed are escaped as \t, \n, \r and \\, so a
+ * sender can't forge fields or records.
+ *
+ * @author SirFaizdat
+ */
+public class CommandAuditLog {
+
+    /**
+     * What the command ended up doing
+     */
+    public enum Outcome {
+        SUCCESS, ERROR, NO_PERMISSION, NOT_PLAYER, INCORRECT_USAGE, INVALID_ARGUMENT, COOLDOWN, BUSY, NOT_FOUND
+    }
+
+    /**
+     * What to do with new records while the buffer is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Throw the record away, and count it in {@link #getDropped()}
+         */
+        DROP,
+        /**
+         * Wait until the writer made room. This slows down the server while the disk can't keep up.
+         */
+        BLOCK
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_SIZE = 16L * 1024 * 1024;
+    public static final long DEFAULT_MAX_AGE = TimeUnit.DAYS.toMillis(1);
+
+    private static final long IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_WAIT = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final File directory;
+    private final String name;
+    private final long maxSize;
+    private final long maxAge;
+    private final OverflowPolicy policy;
+
+    // The ring buffer, see http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue
+    private final AtomicReferenceArray<Record> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0; // Only used by the writer
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private OutputStream writer;
+    private long size;
+    private long opened;
+    private long failedSince = -1; // The failed count when writing started failing, or -1 while it works
+    private boolean rotateFailed = false;
+
+    /**
+     * Creates a log with the default capacity, limits and the {@link OverflowPolicy#DROP} policy.
+     *
+     * @param directory The directory to keep the log files in
+     * @param name      The name of the log file, without '.log'
+     */
+    public CommandAuditLog(File directory, String name) {
+        this(directory, name, DEFAULT_CAPACITY, DEFAULT_MAX_SIZE, DEFAULT_MAX_AGE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * @param directory The directory to keep the log files in
+     * @param name      The name of the log file, without '.log'
+     * @param capacity  The amount of records the buffer holds, rounded up to a power of two
+     * @param maxSize   The size in bytes after which the file is rotated
+     * @param maxAge    The time in milliseconds after which the file is rotated
+     * @param policy    What to do while the buffer is full
+     */
+    public CommandAuditLog(File directory, String name, int capacity, long maxSize, long maxAge,
+                           OverflowPolicy policy) {
+        this.directory = directory;
+        this.name = name;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        this.policy = policy;
+        int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(length);
+        this.sequences = new AtomicLongArray(length);
+        this.mask = length - 1;
+        for (int i = 0; i < length; i++) {
+            sequences.set(i, i);
+        }
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "SpringCore Audit Writer - " + name);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Records a command. This never blocks unless the policy is {@link OverflowPolicy#BLOCK}.
+     *
+     * @param sender  The sender of the command
+     * @param node    The node of the command, or null if no command was found
+     * @param label   The label that was typed
+     * @param args    The arguments that were typed
+     * @param outcome What the command ended up doing
+     */
+    public void record(CommandSender sender, CommandNode node, String label, String[] args, Outcome outcome) {
+        Record record = new Record(System.currentTimeMillis(), sender.getName(),
+                sender instanceof Player ? ((Player) sender).getUniqueId() : null,
+                node == null ? null : node.getPath(), label, args, outcome);
+        while (!offer(record)) {
+            if (policy == OverflowPolicy.DROP || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(FULL_WAIT);
+        }
+    }
+
+    private boolean offer(Record record) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, record);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false; // Full
+            }
+            // Else another thread took this position first, try the next one
+        }
+    }
+
+    private Record poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null; // Empty, or the record isn't published yet
+        }
+        Record record = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + mask + 1);
+        head++;
+        return record;
+    }
+
+    private void write() {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            boolean stopping = !running;
+            Record record = poll();
+            if (record == null) {
+                flush();
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_WAIT);
+                continue;
+            }
+            try {
+                rotateIfNeeded();
+                line.setLength(0);
+                record.format(line, format);
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                writer.write(bytes);
+                size += bytes.length;
+                written.incrementAndGet();
+                if (failedSince >= 0) {
+                    log("&7The audit log &3%s&7 is written again, &c%d&7 records were lost.", name,
+                            failed.get() - failedSince);
+                    failedSince = -1;
+                }
+            } catch (IOException e) {
+                fail(e);
+                failed.incrementAndGet();
+                closeWriter();
+            }
+        }
+        closeWriter();
+    }
+
+    private void rotateIfNeeded() throws IOException {
+        long now = System.currentTimeMillis();
+        File file = new File(directory, name + ".log");
+        if (writer != null && (size >= maxSize || now - opened >= maxAge)) {
+            closeWriter();
+            String suffix = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+            File rotated = new File(directory, name + "-" + suffix + ".log");
+            for (int i = 1; rotated.exists(); i++) {
+                rotated = new File(directory, name + "-" + suffix + "-" + i + ".log");
+            }
+            if (!file.renameTo(rotated) && !rotateFailed) {
+                rotateFailed = true; // It keeps writing to the same file, which would fail again on every record
+                log("&cError: &7Unable to rotate the audit log &c%s&7, it keeps growing.", file.getName());
+            }
+        }
+        if (writer == null) {
+            opened = now; // A file left from before a restart counts its age from here on
+            size = file.length();
+            writer = new BufferedOutputStream(new FileOutputStream(file, true));
+        }
+    }
+
+    private void flush() {
+        if (writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                fail(e);
+                closeWriter();
+            }
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+            writer = null;
+        }
+    }
+
+    // Only the first of a series of failures is reported, the disk or the directory is usually the problem
+    private void fail(IOException e) {
+        if (failedSince < 0) {
+            failedSince = failed.get();
+            log("&cError: &7Unable to write the audit log &c%s&7: %s", name, e.getMessage());
+        }
+    }
+
+    private static void log(String message, Object... args) {
+        if (SpringCore.get() != null) {
+            SpringCore.get().log(message, args);
+        }
+    }
+
+    /**
+     * Writes every record that is left and closes the file. Records after this are dropped.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the amount of records that were thrown away because the buffer was full,
+     * or because they couldn't be written
+     */
+    public long getDropped() {
+        return dropped.get() + failed.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Gets the amount of records waiting to be written
+     */
+    public long getPending() {
+        return tail.get() - written.get() - failed.get();
+    }
+
+    private static class Record {
+
+        private final long time;
+        private final String sender;
+        private final UUID uuid;
+        private final String path;
+        private final String label;
+        private final String[] args;
+        private final Outcome outcome;
+
+        private Record(long time, String sender, UUID uuid, String path, String label, String[] args,
+                       Outcome outcome) {
+            this.time = time;
+            this.sender = sender;
+            this.uuid = uuid;
+            this.path = path;
+            this.label = label;
+            this.args = args;
+            this.outcome = outcome;
+        }
+
+        // time, sender, uuid, command path, outcome, command line
+        private void format(StringBuilder line, SimpleDateFormat format) {
+            line.append(format.format(new Date(time))).append('\t');
+            escape(line, sender).append('\t')
+                    .append(uuid == null ? "-" : uuid.toString()).append('\t');
+            escape(line, path == null ? "-" : path).append('\t').append(outcome).append('\t').append('/');
+            escape(line, label);
+            for (String arg : args) {
+                escape(line.append(' '), arg);
+            }
+            line.append('\n');
+        }
+
+        private static StringBuilder escape(StringBuilder line, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\t':
+                        line.append("\\t");
+                        break;
+                    case '\n':
+                        line.append("\\n");
+                        break;
+                    case '\r':
+                        line.append("\\r");
+                        break;
+                    case '\\':
+                        line.append("\\\\");
+                        break;
+                    default:
+                        line.append(c);
+                }
+            }
+            return line;
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command Framework - CommandBatch <br>
+ * A list of command lines to run over as many ticks as it takes, see
+ * {@link CommandFramework#submit(CommandBatch)}. Use this instead of calling
+ * {@link org.bukkit.Bukkit#dispatchCommand(CommandSender, String)} thousands of
+ * times in a row, which freezes the server until every command has run.
+ *
+ * @author SirFaizdat
+ */
+public class CommandBatch {
+
+    private final List<CommandSender> senders = new ArrayList<>();
+    private final List<String> lines = new ArrayList<>();
+    private final SettableFuture<Integer> future = SettableFuture.create();
+    private int next = 0;
+
+    /**
+     * Adds a command line to the batch
+     *
+     * @param sender The sender to run the command as, ie. the console
+     * @param line   The command line, with or without the leading slash
+     * @return This batch, for chaining
+     */
+    public CommandBatch add(CommandSender sender, String line) {
+        senders.add(sender);
+        lines.add(line.startsWith("/") ? line.substring(1) : line);
+        return this;
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    /**
+     * Gets the future that completes with the amount of commands that were run,
+     * once the whole batch has been run
+     */
+    public ListenableFuture<Integer> getFuture() {
+        return future;
+    }
+
+    boolean hasNext() {
+        return next < lines.size();
+    }
+
+    CommandSender nextSender() {
+        return senders.get(next);
+    }
+
+    // Moves on to the next line, and returns the current one
+    String nextLine() {
+        return lines.get(next++);
+    }
+
+    void complete() {
+        future.set(next);
+    }
+
+    void cancel() {
+        future.cancel(false);
+    }
+
+}
@@ -58,7 +58,11 @@ public class CommandFeature implements Feature {
 
     @Override
     public void deinit() {
-
+        if (commandFramework != null) {
+            commandFramework.unregisterAll();
+            commandFramework.shutdownAsyncPools();
+            commandFramework = null;
+        }
     }
 
     /**
@@ -71,4 +75,18 @@ public class CommandFeature implements Feature {
         commandFramework.registerCommand(obj);
     }
 
+    /**
+     * Unregister all {@link Command} and {@link Completer} methods of an object,
+     * ie. before registering a new instance of it.
+     *
+     * @param obj The Object that was registered with {@link #registerCommands(Object)}.
+     */
+    public void unregisterCommands(Object obj) {
+        commandFramework.unregisterCommand(obj);
+    }
+
+    public CommandFramework getCommandFramework() {
+        return commandFramework;
+    }
+
 }
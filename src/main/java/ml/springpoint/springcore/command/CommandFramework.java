@@ -17,6 +17,7 @@
 
 package ml.springpoint.springcore.command;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import ml.springpoint.springcore.SpringCore;
 import ml.springpoint.springcore.SpringPlugin;
 import org.bukkit.Bukkit;
@@ -24,18 +25,17 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandMap;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
+import org.bukkit.command.SimpleCommandMap;
 import org.bukkit.entity.Player;
-import org.bukkit.help.GenericCommandHelpTopic;
+import org.bukkit.help.HelpMap;
 import org.bukkit.help.HelpTopic;
-import org.bukkit.help.HelpTopicComparator;
-import org.bukkit.help.IndexHelpTopic;
 import org.bukkit.plugin.SimplePluginManager;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Command Framework - CommandFramework <br>
@@ -47,15 +47,30 @@ import java.util.Map.Entry;
  */
 public class CommandFramework implements CommandExecutor {
 
-    private Map<String, Entry<Method, Object>> commandMap = new HashMap<>();
+    private static final String DEFAULT_POOL = "";
+    private static final int DEFAULT_POOL_THREADS = 4;
+    private static final int DEFAULT_POOL_QUEUE = 256;
+    private static final int MAX_SUGGESTIONS = 3;
+    private static final List<CommandFramework> frameworks = new CopyOnWriteArrayList<>();
+
+    private CommandTree commandTree = new CommandTree();
+    private CommandSuggestions suggestions = new CommandSuggestions();
     private CommandMap map;
     private SpringPlugin plugin;
+    private boolean reflectiveInvokers = false;
+    private Map<String, AsyncCommandPool> asyncPools = new ConcurrentHashMap<>();
+    private BatchDispatcher batchDispatcher = new BatchDispatcher(this);
+    private HelpIndex helpIndex = new HelpIndex();
+    private List<HelpTopic> helpTopics = new ArrayList<>();
+    private boolean helpRegistered = false;
+    private volatile CommandAuditLog auditLog;
 
     /**
      * Initializes the command framework and sets up the command maps
      */
     public CommandFramework(SpringPlugin plugin) {
         this.plugin = plugin;
+        frameworks.add(this);
         if (plugin.getServer().getPluginManager() instanceof SimplePluginManager) {
             SimplePluginManager manager = (SimplePluginManager) plugin.getServer().getPluginManager();
             try {
@@ -84,101 +99,490 @@ public class CommandFramework implements CommandExecutor {
      * @return Always returns true for simplicity's sake in onCommand
      */
     public boolean handleCommand(CommandSender sender, org.bukkit.command.Command cmd, String label, String[] args) {
-        for (int i = args.length; i >= 0; i--) {
-            StringBuilder buffer = new StringBuilder();
-            buffer.append(label.toLowerCase());
-            for (int x = 0; x < i; x++) {
-                buffer.append(".").append(args[x].toLowerCase());
-            }
-            String cmdLabel = buffer.toString();
-            if (commandMap.containsKey(cmdLabel)) {
-                Method method = commandMap.get(cmdLabel).getKey();
-                Object methodObject = commandMap.get(cmdLabel).getValue();
-                Command command = method.getAnnotation(Command.class);
-                if (!command.permission().equals("") && !sender.hasPermission(command.permission())) {
-                    SpringCore.get().getMessages().send(sender, "no-permission", command.permission());
-                    return true;
-                }
-                if (command.inGameOnly() && !(sender instanceof Player)) {
-                    SpringCore.get().getMessages().send(sender, "must-be-player");
-                    return true;
+        return handleCommand(commandTree.resolveCommand(label, args), sender, cmd, label, args);
+    }
+
+    // Used by the batch dispatcher, which may already know the node
+    boolean handleCommand(CommandNode node, CommandSender sender, org.bukkit.command.Command cmd, String label,
+                          String[] args) {
+        if (node != null) {
+            CommandHandler command = node.getCommand();
+            if (command.hasPermission()
+                    && !PermissionCache.getInstance().hasPermission(sender, command.getPermission())) {
+                if (CommandMetrics.isEnabled()) {
+                    node.getMetrics().recordDenial();
                 }
-                if (args.length < command.minArgs()) {
-                    SpringCore.get().getMessages().send(sender, "incorrect-usage", command.usage());
+                audit(sender, node, label, args, CommandAuditLog.Outcome.NO_PERMISSION);
+                SpringCore.get().getMessages().send(sender, "no-permission", command.getPermission());
+                return true;
+            }
+            if (command.isInGameOnly() && !(sender instanceof Player)) {
+                audit(sender, node, label, args, CommandAuditLog.Outcome.NOT_PLAYER);
+                SpringCore.get().getMessages().send(sender, "must-be-player");
+                return true;
+            }
+            if (args.length < command.getMinArgs()) {
+                audit(sender, node, label, args, CommandAuditLog.Outcome.INCORRECT_USAGE);
+                SpringCore.get().getMessages().send(sender, "incorrect-usage", command.getUsage());
+                return true;
+            }
+            CommandArgs commandArgs = new CommandArgs(plugin, sender, cmd, label, args, node.getDepth());
+            Object[] params = command.bind(commandArgs);
+            if (params == null) {
+                audit(sender, node, label, args, CommandAuditLog.Outcome.INVALID_ARGUMENT);
+                return true; // The binder already told the sender what's wrong
+            }
+            if (command.getLimiter() != null) {
+                long wait = command.getLimiter().tryAcquire(sender);
+                if (wait > 0) {
+                    audit(sender, node, label, args, CommandAuditLog.Outcome.COOLDOWN);
+                    SpringCore.get().getMessages().send(sender, "command-cooldown",
+                            String.format("%.1f", wait / 1000.0));
                     return true;
                 }
-                try {
-                    method.invoke(methodObject, new CommandArgs(sender, cmd, label, args,
-                            cmdLabel.split("\\.").length - 1));
-                } catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
-                    e.printStackTrace();
-                }
+            }
+            if (command.isAsync()) {
+                handleAsync(node, commandArgs, params);
                 return true;
             }
+            invoke(node, commandArgs, params);
+            return true;
         }
-        defaultCommand(new CommandArgs(sender, cmd, label, args, 0));
+        audit(sender, null, label, args, CommandAuditLog.Outcome.NOT_FOUND);
+        defaultCommand(new CommandArgs(plugin, sender, cmd, label, args, 0));
         return true;
     }
 
+    private void invoke(CommandNode node, CommandArgs args, Object[] params) {
+        boolean timed = CommandMetrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0;
+        boolean failed = false;
+        try {
+            node.getCommand().invoke(args, params);
+        } catch (Throwable t) {
+            failed = true;
+            t.printStackTrace();
+        }
+        if (timed) {
+            node.getMetrics().recordCommand(System.nanoTime() - start, failed);
+        }
+        audit(args.getSender(), node, args.getBaseLabel(), args.getRawArgs(),
+                failed ? CommandAuditLog.Outcome.ERROR : CommandAuditLog.Outcome.SUCCESS);
+    }
+
+    private void audit(CommandSender sender, CommandNode node, String label, String[] args,
+                       CommandAuditLog.Outcome outcome) {
+        CommandAuditLog auditLog = this.auditLog;
+        if (auditLog != null) {
+            auditLog.record(sender, node, label, args, outcome);
+        }
+    }
+
+    /**
+     * Sets the log that every command of this framework is recorded to. The previous
+     * log is closed.
+     *
+     * @param auditLog The log, or null to stop recording commands
+     */
+    public void setAuditLog(CommandAuditLog auditLog) {
+        CommandAuditLog previous = this.auditLog;
+        this.auditLog = auditLog;
+        if (previous != null && previous != auditLog) {
+            previous.close();
+        }
+    }
+
+    public CommandAuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    private void handleAsync(final CommandNode node, final CommandArgs args, final Object[] params) {
+        CommandHandler command = node.getCommand();
+        AsyncCommandPool pool = getAsyncPool(command.getExecutor());
+        if (pool == null) {
+            plugin.log("&cError: &7No async pool named &c%s&7 for the command &c%s&7.", command.getExecutor(),
+                    command.getName());
+            refund(command, args.getSender());
+            audit(args.getSender(), node, args.getBaseLabel(), args.getRawArgs(), CommandAuditLog.Outcome.ERROR);
+            SpringCore.get().getMessages().send(args.getSender(), "command-unavailable");
+            return;
+        }
+        boolean queued = pool.submit(new Runnable() {
+            @Override
+            public void run() {
+                invoke(node, args, params);
+            }
+        });
+        if (!queued) {
+            refund(command, args.getSender());
+            audit(args.getSender(), node, args.getBaseLabel(), args.getRawArgs(), CommandAuditLog.Outcome.BUSY);
+            SpringCore.get().getMessages().send(args.getSender(), "command-busy");
+        }
+    }
+
+    // Gives back the use of a command that did not run
+    private void refund(CommandHandler command, CommandSender sender) {
+        if (command.getLimiter() != null) {
+            command.getLimiter().release(sender);
+        }
+    }
+
+    /**
+     * Runs a batch of command lines on the server thread, spread out over as many
+     * ticks as needed to stay within the batch budget of every tick. Lines for
+     * commands of other plugins are passed on to Bukkit. This may be called from
+     * any thread.
+     *
+     * @param batch The command lines to run
+     * @return A future that completes with the amount of lines that were run, once
+     * the whole batch has been run
+     */
+    public ListenableFuture<Integer> submit(CommandBatch batch) {
+        batchDispatcher.submit(batch);
+        return batch.getFuture();
+    }
+
+    /**
+     * Sets the time batches may take up every tick. The default is 10 milliseconds,
+     * a fifth of a tick.
+     *
+     * @param millis The budget in milliseconds
+     */
+    public void setBatchBudget(long millis) {
+        batchDispatcher.setBudget(millis);
+    }
+
+    /**
+     * Adds a pool for {@link Command#async()} commands to run on. Commands choose
+     * their pool with {@link Command#executor()}.
+     *
+     * @param name          The name of the pool
+     * @param threads       The maximum amount of commands running at the same time
+     * @param queueCapacity The maximum amount of commands waiting for a thread
+     * @return The new pool
+     */
+    public AsyncCommandPool addAsyncPool(String name, int threads, int queueCapacity) {
+        AsyncCommandPool pool = new AsyncCommandPool(plugin.getName() + "/" + (name.isEmpty() ? "default" : name),
+                threads, queueCapacity);
+        AsyncCommandPool old = asyncPools.put(name, pool);
+        if (old != null) {
+            old.shutdown();
+        }
+        return pool;
+    }
+
+    /**
+     * Gets a pool for {@link Command#async()} commands.
+     *
+     * @param name The name of the pool, or an empty string for the default pool
+     * @return The pool, or null if no pool was added under that name
+     */
+    public AsyncCommandPool getAsyncPool(String name) {
+        AsyncCommandPool pool = asyncPools.get(name);
+        if (pool == null && name.isEmpty()) {
+            synchronized (asyncPools) {
+                pool = asyncPools.get(name);
+                if (pool == null) {
+                    pool = addAsyncPool(DEFAULT_POOL, DEFAULT_POOL_THREADS, DEFAULT_POOL_QUEUE);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Gets all pools for {@link Command#async()} commands, to look at their metrics.
+     */
+    public Collection<AsyncCommandPool> getAsyncPools() {
+        return Collections.unmodifiableCollection(asyncPools.values());
+    }
+
+    /**
+     * Stops all pools for {@link Command#async()} commands. Commands that are already
+     * queued will still finish.
+     */
+    public void shutdownAsyncPools() {
+        for (AsyncCommandPool pool : asyncPools.values()) {
+            pool.shutdown();
+        }
+        asyncPools.clear();
+    }
+
     /**
      * Registers all command and completer methods inside of the object. Similar
      * to Bukkit's registerEvents method.
+     * <p/>
+     * If the class of the object was compiled with the springcore-processor annotation
+     * processor, the generated {@link CommandRegistry} is used and the methods of the
+     * object are not scanned at all.
      *
      * @param obj The object to register the commands of
      */
     public void registerCommand(Object obj) {
+        if (!reflectiveInvokers && registerGenerated(obj)) {
+            return;
+        }
         for (Method m : obj.getClass().getMethods()) {
             if (m.getAnnotation(Command.class) != null) {
-                Command command = m.getAnnotation(Command.class);
-                if (m.getParameterTypes().length > 1 || m.getParameterTypes()[0] != CommandArgs.class) {
+                if (m.getParameterTypes().length == 0 || m.getParameterTypes()[0] != CommandArgs.class) {
                     System.out.println("Unable to register command " + m.getName() + ". Unexpected method arguments");
                     continue;
                 }
-                registerCommand(command, command.name(), m, obj);
-                for (String alias : command.aliases()) {
-                    registerCommand(command, alias, m, obj);
+                if (m.getParameterTypes().length > 1) {
+                    registerCommand(m, obj, CommandInvokers.createTyped(m, obj, reflectiveInvokers));
+                } else {
+                    registerCommand(m, obj, CommandInvokers.create(m, obj, reflectiveInvokers));
                 }
             } else if (m.getAnnotation(Completer.class) != null) {
-                Completer comp = m.getAnnotation(Completer.class);
                 if (m.getParameterTypes().length > 1 || m.getParameterTypes().length == 0
                         || m.getParameterTypes()[0] != CommandArgs.class) {
                     System.out.println("Unable to register tab completer " + m.getName()
                             + ". Unexpected method arguments");
                     continue;
                 }
-                if (m.getReturnType() != List.class) {
+                if (m.getReturnType() != List.class && m.getReturnType() != CompletionSource.class) {
                     System.out.println("Unable to register tab completer " + m.getName() + ". Unexpected return type");
                     continue;
                 }
-                registerCompleter(comp.name(), m, obj);
-                for (String alias : comp.aliases()) {
-                    registerCompleter(alias, m, obj);
+                registerCompleter(m, obj, CommandInvokers.create(m, obj, reflectiveInvokers));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean registerGenerated(Object obj) {
+        Class<?> clazz = obj.getClass();
+        CommandRegistry<Object> registry;
+        try {
+            Class<?> registryClass = Class.forName(clazz.getName().replace('$', '_') + CommandRegistry.SUFFIX, true,
+                    clazz.getClassLoader());
+            registry = (CommandRegistry<Object>) registryClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            return false; // Not compiled with the annotation processor
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            e.printStackTrace();
+            return false;
+        }
+        try {
+            registry.register(obj, this);
+            return true;
+        } catch (ReflectiveOperationException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Registers a single {@link Command} method under its name and all of its aliases.
+     *
+     * @param m       The method annotated with {@link Command}
+     * @param obj     The object to call the method on
+     * @param invoker The invoker that calls the method
+     */
+    public void registerCommand(Method m, Object obj, CommandInvoker invoker) {
+        Command command = m.getAnnotation(Command.class);
+        registerCommand(command, new CommandHandler(command, m, obj, invoker));
+    }
+
+    /**
+     * Registers a single {@link Command} method with typed parameters under its name and
+     * all of its aliases. See {@link ArgumentBinder} for the supported parameters.
+     *
+     * @param m       The method annotated with {@link Command}
+     * @param obj     The object to call the method on
+     * @param invoker The invoker that calls the method
+     */
+    public void registerCommand(Method m, Object obj, TypedInvoker invoker) {
+        ArgumentBinder binder = ArgumentBinder.create(m);
+        if (binder == null) {
+            return; // Already told why
+        }
+        Command command = m.getAnnotation(Command.class);
+        registerCommand(command, new CommandHandler(command, m, obj, invoker, binder));
+    }
+
+    private void registerCommand(Command command, CommandHandler handler) {
+        registerCommand(command, command.name(), handler);
+        for (String alias : command.aliases()) {
+            registerCommand(command, alias, handler);
+        }
+    }
+
+    /**
+     * Registers a single {@link Completer} method under its name and all of its aliases.
+     *
+     * @param m       The method annotated with {@link Completer}
+     * @param obj     The object to call the method on
+     * @param invoker The invoker that calls the method
+     */
+    public void registerCompleter(Method m, Object obj, CommandInvoker invoker) {
+        Completer comp = m.getAnnotation(Completer.class);
+        CompleterHandler handler = new CompleterHandler(m, obj, invoker);
+        registerCompleter(comp.name(), handler);
+        for (String alias : comp.aliases()) {
+            registerCompleter(alias, handler);
+        }
+    }
+
+    /**
+     * Unregisters all command and completer methods of an object, so that nothing
+     * keeps a reference to it anymore. Bukkit commands that are left without any
+     * command or completer are removed from the command map, along with their
+     * aliases. The object can be registered again afterwards.
+     *
+     * @param obj The object to unregister the commands of
+     */
+    public void unregisterCommand(Object obj) {
+        Set<String> topics = new HashSet<>();
+        for (String path : commandTree.remove(obj)) {
+            suggestions.remove(path);
+            helpIndex.remove(path);
+            if (path.indexOf('.') < 0) {
+                CommandNode node = commandTree.find(path);
+                if (node == null || node.getCommand() == null) {
+                    topics.add("/" + path.toLowerCase(Locale.ENGLISH));
                 }
             }
         }
+        removeHelpTopics(topics);
+        unregisterBukkitCommands(false);
     }
 
     /**
-     * Registers all the commands under the plugin's help
+     * Unregisters every command and completer of this framework. This is called for
+     * you when the plugin is disabled.
+     */
+    public void unregisterAll() {
+        batchDispatcher.cancel();
+        setAuditLog(null);
+        commandTree.clear();
+        suggestions = new CommandSuggestions();
+        helpIndex.clear();
+        removeHelpTopics(null);
+        unregisterBukkitCommands(true);
+        frameworks.remove(this);
+    }
+
+    private void unregisterBukkitCommands(boolean all) {
+        if (!(map instanceof SimpleCommandMap)) {
+            return;
+        }
+        try {
+            Field field = SimpleCommandMap.class.getDeclaredField("knownCommands");
+            field.setAccessible(true);
+            @SuppressWarnings("unchecked")
+            Map<String, org.bukkit.command.Command> knownCommands = (Map<String, org.bukkit.command.Command>) field.get(map);
+            Iterator<org.bukkit.command.Command> it = knownCommands.values().iterator();
+            while (it.hasNext()) {
+                org.bukkit.command.Command command = it.next();
+                if (command instanceof BukkitCommand && ((BukkitCommand) command).getExecutor() == this) {
+                    if (all || commandTree.find(command.getName()) == null) {
+                        it.remove(); // Also removes the aliases and 'plugin:label', which share the command
+                        command.unregister(map);
+                    }
+                } else if (command instanceof PluginCommand) {
+                    Field completerField = PluginCommand.class.getDeclaredField("completer");
+                    completerField.setAccessible(true);
+                    Object completer = completerField.get(command);
+                    if (completer instanceof BukkitCompleter && ((BukkitCompleter) completer).getFramework() == this
+                            && (all || commandTree.find(command.getName()) == null)) {
+                        completerField.set(command, null);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException | SecurityException | IllegalAccessException | NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Registers all the commands under the plugin's help. Commands that are registered
+     * afterwards are added to the help as well.
      */
     public void registerHelp() {
-        Set<HelpTopic> help = new TreeSet<>(HelpTopicComparator.helpTopicComparatorInstance());
-        for (String s : commandMap.keySet()) {
-            if (!s.contains(".")) {
-                org.bukkit.command.Command cmd = map.getCommand(s);
-                HelpTopic topic = new GenericCommandHelpTopic(cmd);
-                help.add(topic);
+        helpRegistered = true;
+        addHelpTopic(helpIndex.createTopic(plugin.getName(), ""));
+        for (CommandNode node : commandTree.getRoots()) {
+            if (node.getCommand() != null) {
+                addHelpTopic(helpIndex.createTopic("/" + node.getName(), node.getName()));
             }
         }
-        IndexHelpTopic topic = new IndexHelpTopic(plugin.getName(), "All commands for " + plugin.getName(), null, help,
-                "Below is a list of all " + plugin.getName() + " commands:");
-        Bukkit.getServer().getHelpMap().addTopic(topic);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addHelpTopic(HelpTopic topic) {
+        HelpMap helpMap = Bukkit.getServer().getHelpMap();
+        try {
+            // Bukkit never replaces topics, and it adds its own for every command when the server starts
+            Field field = helpMap.getClass().getDeclaredField("helpTopics");
+            field.setAccessible(true);
+            ((Map<String, HelpTopic>) field.get(helpMap)).put(topic.getName(), topic);
+        } catch (IllegalArgumentException | SecurityException | IllegalAccessException | NoSuchFieldException e) {
+            helpMap.addTopic(topic);
+        }
+        helpTopics.add(topic);
+    }
+
+    /**
+     * Removes help topics this framework added from Bukkit's help
+     *
+     * @param names The names of the topics to remove, or null to remove all of them
+     */
+    @SuppressWarnings("unchecked")
+    private void removeHelpTopics(Set<String> names) {
+        if (helpTopics.isEmpty() || (names != null && names.isEmpty())) {
+            return;
+        }
+        HelpMap helpMap = Bukkit.getServer().getHelpMap();
+        try {
+            Field field = helpMap.getClass().getDeclaredField("helpTopics");
+            field.setAccessible(true);
+            Map<String, HelpTopic> topics = (Map<String, HelpTopic>) field.get(helpMap);
+            Iterator<HelpTopic> it = helpTopics.iterator();
+            while (it.hasNext()) {
+                HelpTopic topic = it.next();
+                if (names == null || names.contains(topic.getName())) {
+                    if (topics.get(topic.getName()) == topic) {
+                        topics.remove(topic.getName());
+                    }
+                    it.remove();
+                }
+            }
+        } catch (IllegalArgumentException | SecurityException | IllegalAccessException | NoSuchFieldException e) {
+            e.printStackTrace();
+        }
+        if (names == null) {
+            helpTopics.clear();
+        }
+    }
+
+    /**
+     * Sets whether commands and completers registered from now on should be called through
+     * plain reflection rather than through method handles. This is only meant as a fallback
+     * in case a handler can't be called through a method handle on some JVM.
+     *
+     * @param reflectiveInvokers true to use {@link Method#invoke(Object, Object...)}
+     */
+    public void setReflectiveInvokers(boolean reflectiveInvokers) {
+        this.reflectiveInvokers = reflectiveInvokers;
     }
 
     public void registerCommand(Command command, String label, Method m, Object obj) {
-        commandMap.put(label.toLowerCase(), new AbstractMap.SimpleEntry<>(m, obj));
-        commandMap.put(this.plugin.getName() + ':' + label.toLowerCase(), new AbstractMap.SimpleEntry<>(m, obj));
+        registerCommand(command, label, new CommandHandler(command, m, obj,
+                CommandInvokers.create(m, obj, reflectiveInvokers)));
+    }
+
+    private void registerCommand(Command command, String label, CommandHandler handler) {
+        commandTree.getOrCreate(label).setCommand(handler);
+        suggestions.add(label);
+        if (label.equalsIgnoreCase(handler.getName())) {
+            helpIndex.add(handler); // Aliases are left out of the help
+        }
         String cmdLabel = label.replace(".", ",").split(",")[0].toLowerCase();
+        if (helpRegistered && cmdLabel.equals(label) && label.equalsIgnoreCase(handler.getName())) {
+            addHelpTopic(helpIndex.createTopic("/" + cmdLabel, cmdLabel));
+        }
+        commandTree.aliasRoot(this.plugin.getName() + ':' + cmdLabel, cmdLabel);
         if (map.getCommand(cmdLabel) == null) {
             org.bukkit.command.Command cmd = new BukkitCommand(cmdLabel, this, plugin);
             map.register(plugin.getName(), cmd);
@@ -186,12 +590,16 @@ public class CommandFramework implements CommandExecutor {
         if (!command.description().equalsIgnoreCase("") && cmdLabel.equals(label)) {
             map.getCommand(cmdLabel).setDescription(command.description());
         }
-        if (!command.usage().equalsIgnoreCase("") && cmdLabel.equals(label)) {
-            map.getCommand(cmdLabel).setUsage(command.usage());
+        if (!handler.getUsage().equalsIgnoreCase("") && cmdLabel.equals(label)) {
+            map.getCommand(cmdLabel).setUsage(handler.getUsage());
         }
     }
 
     public void registerCompleter(String label, Method m, Object obj) {
+        registerCompleter(label, new CompleterHandler(m, obj, CommandInvokers.create(m, obj, reflectiveInvokers)));
+    }
+
+    private void registerCompleter(String label, CompleterHandler handler) {
         String cmdLabel = label.replace(".", ",").split(",")[0].toLowerCase();
         if (map.getCommand(cmdLabel) == null) {
             org.bukkit.command.Command command = new BukkitCommand(cmdLabel, this, plugin);
@@ -200,23 +608,23 @@ public class CommandFramework implements CommandExecutor {
         if (map.getCommand(cmdLabel) instanceof BukkitCommand) {
             BukkitCommand command = (BukkitCommand) map.getCommand(cmdLabel);
             if (command.completer == null) {
-                command.completer = new BukkitCompleter();
+                command.completer = new BukkitCompleter(this);
             }
-            command.completer.addCompleter(label, m, obj);
+            command.completer.addCompleter(label, handler);
         } else if (map.getCommand(cmdLabel) instanceof PluginCommand) {
             try {
                 Object command = map.getCommand(cmdLabel);
                 Field field = command.getClass().getDeclaredField("completer");
                 field.setAccessible(true);
                 if (field.get(command) == null) {
-                    BukkitCompleter completer = new BukkitCompleter();
-                    completer.addCompleter(label, m, obj);
+                    BukkitCompleter completer = new BukkitCompleter(this);
+                    completer.addCompleter(label, handler);
                     field.set(command, completer);
                 } else if (field.get(command) instanceof BukkitCompleter) {
                     BukkitCompleter completer = (BukkitCompleter) field.get(command);
-                    completer.addCompleter(label, m, obj);
+                    completer.addCompleter(label, handler);
                 } else {
-                    System.out.println("Unable to register tab completer " + m.getName()
+                    System.out.println("Unable to register tab completer " + handler.getMethod().getName()
                             + ". A tab completer is already registered for that command!");
                 }
             } catch (Exception ex) {
@@ -225,8 +633,51 @@ public class CommandFramework implements CommandExecutor {
         }
     }
 
+    /**
+     * Gets the command frameworks of every enabled plugin.
+     */
+    public static List<CommandFramework> getFrameworks() {
+        List<CommandFramework> enabled = new ArrayList<>();
+        for (CommandFramework framework : frameworks) {
+            if (framework.plugin.isEnabled()) {
+                enabled.add(framework);
+            } else {
+                frameworks.remove(framework);
+            }
+        }
+        return enabled;
+    }
+
+    org.bukkit.command.Command getBukkitCommand(String label) {
+        return map == null ? null : map.getCommand(label);
+    }
+
+    CommandTree getCommandTree() {
+        return commandTree;
+    }
+
+    SpringPlugin getPlugin() {
+        return plugin;
+    }
+
     private void defaultCommand(CommandArgs args) {
         SpringCore.get().getMessages().send(args.getSender(), "command-not-found");
+        StringBuilder buffer = new StringBuilder();
+        int found = 0;
+        for (String path : suggestions.suggest(args.getLabel(), args.getArgs(), MAX_SUGGESTIONS * 2)) {
+            CommandNode node = commandTree.find(path.replace(' ', '.'));
+            if (node == null || node.getCommand() == null || (node.getCommand().hasPermission()
+                    && !PermissionCache.getInstance().hasPermission(args.getSender(), node.getCommand().getPermission()))) {
+                continue;
+            }
+            buffer.append(found == 0 ? "" : "&7, &3").append('/').append(path);
+            if (++found == MAX_SUGGESTIONS) {
+                break;
+            }
+        }
+        if (found > 0) {
+            SpringCore.get().getMessages().send(args.getSender(), "command-suggestion", buffer.toString());
+        }
     }
 
 }
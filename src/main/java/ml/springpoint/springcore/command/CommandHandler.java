@@ -0,0 +1,197 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.lang.reflect.Method;
+
+/**
+ * Command Framework - CommandHandler <br>
+ * A registered {@link Command} method, along with its attributes. The annotation
+ * is read once when the command is registered so that dispatching a command never
+ * has to look at it again.
+ * <p/>
+ * Methods with typed parameters are called through a {@link TypedInvoker}, after their
+ * arguments have been bound by their {@link ArgumentBinder}.
+ *
+ * @author SirFaizdat
+ */
+public class CommandHandler {
+
+    private static final Object[] NO_PARAMS = new Object[0];
+
+    private final Object object;
+    private final Method method;
+    private final CommandInvoker invoker;
+    private final TypedInvoker typedInvoker;
+    private final ArgumentBinder binder;
+    private final String name;
+    private final String permission;
+    private final String description;
+    private final String usage;
+    private final int minArgs;
+    private final boolean inGameOnly;
+    private final boolean async;
+    private final String executor;
+    private final CommandLimiter limiter;
+
+    public CommandHandler(Command command, Method method, Object object, CommandInvoker invoker) {
+        this(command, method, object, invoker, null, null);
+    }
+
+    public CommandHandler(Command command, Method method, Object object, TypedInvoker invoker, ArgumentBinder binder) {
+        this(command, method, object, null, invoker, binder);
+    }
+
+    private CommandHandler(Command command, Method method, Object object, CommandInvoker invoker,
+                           TypedInvoker typedInvoker, ArgumentBinder binder) {
+        this.object = object;
+        this.method = method;
+        this.invoker = invoker;
+        this.typedInvoker = typedInvoker;
+        this.binder = binder;
+        this.name = command.name();
+        this.permission = command.permission();
+        this.description = command.description();
+        if (command.usage().isEmpty() && binder != null) {
+            this.usage = "/" + command.name().replace('.', ' ') + " " + binder.getUsage();
+        } else {
+            this.usage = command.usage();
+        }
+        this.minArgs = command.minArgs();
+        this.inGameOnly = command.inGameOnly();
+        this.async = command.async();
+        this.executor = command.executor();
+        this.limiter = CommandLimiter.create(command);
+    }
+
+    /**
+     * Binds the arguments to the typed parameters of the method, if it has any.
+     * This is always done on the thread the command was dispatched on.
+     *
+     * @param args The arguments of the command
+     * @return The parameters to pass to {@link #invoke(CommandArgs, Object[])}, or null if
+     * the arguments could not be bound, in which case the sender was already told why
+     */
+    public Object[] bind(CommandArgs args) {
+        if (binder == null) {
+            return NO_PARAMS;
+        }
+        return binder.bind(args, usage);
+    }
+
+    /**
+     * Calls the command method.
+     *
+     * @param args   The arguments of the command
+     * @param params The parameters returned by {@link #bind(CommandArgs)}
+     * @throws Throwable Anything thrown by the method itself
+     */
+    public void invoke(CommandArgs args, Object[] params) throws Throwable {
+        if (binder == null) {
+            invoker.invoke(args);
+        } else {
+            typedInvoker.invoke(params);
+        }
+    }
+
+    /**
+     * Gets the cooldown of the command
+     *
+     * @return The limiter, or null if the command has no {@link Command#cooldown()}
+     */
+    public CommandLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * Gets the object that the method belongs to
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Gets the binder of the typed parameters
+     *
+     * @return The binder, or null if the method only takes a {@link CommandArgs}
+     */
+    public ArgumentBinder getBinder() {
+        return binder;
+    }
+
+    /**
+     * Gets the name of the command as written in {@link Command#name()}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the required permission of the command
+     *
+     * @return The permission, or an empty string if the command does not require one
+     */
+    public String getPermission() {
+        return permission;
+    }
+
+    public boolean hasPermission() {
+        return !permission.isEmpty();
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the usage of the command. If none was set and the method has typed
+     * parameters, the usage is generated from them.
+     */
+    public String getUsage() {
+        return usage;
+    }
+
+    public int getMinArgs() {
+        return minArgs;
+    }
+
+    public boolean isInGameOnly() {
+        return inGameOnly;
+    }
+
+    /**
+     * Whether the method is called on an {@link AsyncCommandPool} rather than the server thread
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets the name of the {@link AsyncCommandPool} that the method is called on
+     *
+     * @return The name of the pool, or an empty string for the default pool
+     */
+    public String getExecutor() {
+        return executor;
+    }
+
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+/**
+ * Command Framework - CommandInvoker <br>
+ * Calls a single {@link Command} or {@link Completer} method. Invokers are
+ * created once when the method is registered, see {@link CommandInvokers}.
+ *
+ * @author SirFaizdat
+ */
+public interface CommandInvoker {
+
+    /**
+     * Calls the handler method.
+     *
+     * @param args The arguments to pass to the method
+     * @return The value returned by the method, or null if it returns void
+     * @throws Throwable Anything thrown by the method itself, unwrapped
+     */
+    Object invoke(CommandArgs args) throws Throwable;
+
+}
@@ -0,0 +1,163 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Command Framework - CommandInvokers <br>
+ * Creates the {@link CommandInvoker}s for registered methods. By default, the
+ * method is bound to its object as a {@link MethodHandle}, which skips the access
+ * checks and the argument array of {@link Method#invoke(Object, Object...)}. Since the
+ * handle is kept in an instance field, the JIT does not inline the method into the
+ * dispatch; the {@link CommandRegistry} generated at compile time calls it directly.
+ *
+ * @author SirFaizdat
+ */
+public final class CommandInvokers {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, CommandArgs.class);
+    private static final MethodType TYPED_INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private CommandInvokers() {
+    }
+
+    /**
+     * Creates an invoker for a method.
+     *
+     * @param m          The method taking a single {@link CommandArgs} argument
+     * @param obj        The object the method is called on
+     * @param reflective true to call the method through plain reflection
+     * @return The invoker
+     */
+    public static CommandInvoker create(Method m, Object obj, boolean reflective) {
+        m.setAccessible(true); // Skips the access check on every call
+        if (!reflective) {
+            try {
+                MethodHandle handle = MethodHandles.lookup().unreflect(m);
+                if (!Modifier.isStatic(m.getModifiers())) {
+                    handle = handle.bindTo(obj);
+                }
+                return new MethodHandleInvoker(handle.asType(INVOKER_TYPE));
+            } catch (IllegalAccessException | RuntimeException e) {
+                // Fall through to reflection, it can still call the method.
+                e.printStackTrace();
+            }
+        }
+        return new ReflectiveInvoker(m, obj);
+    }
+
+    /**
+     * Creates an invoker for a method with typed parameters.
+     *
+     * @param m          The method taking a {@link CommandArgs} followed by typed parameters
+     * @param obj        The object the method is called on
+     * @param reflective true to call the method through plain reflection
+     * @return The invoker
+     */
+    public static TypedInvoker createTyped(Method m, Object obj, boolean reflective) {
+        m.setAccessible(true);
+        if (!reflective) {
+            try {
+                MethodHandle handle = MethodHandles.lookup().unreflect(m);
+                if (!Modifier.isStatic(m.getModifiers())) {
+                    handle = handle.bindTo(obj);
+                }
+                handle = handle.asSpreader(Object[].class, m.getParameterTypes().length);
+                return new TypedMethodHandleInvoker(handle.asType(TYPED_INVOKER_TYPE));
+            } catch (IllegalAccessException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        return new TypedReflectiveInvoker(m, obj);
+    }
+
+    private static class MethodHandleInvoker implements CommandInvoker {
+
+        private final MethodHandle handle;
+
+        MethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(CommandArgs args) throws Throwable {
+            return (Object) handle.invokeExact(args);
+        }
+    }
+
+    private static class ReflectiveInvoker implements CommandInvoker {
+
+        private final Method method;
+        private final Object obj;
+
+        ReflectiveInvoker(Method method, Object obj) {
+            this.method = method;
+            this.obj = obj;
+        }
+
+        @Override
+        public Object invoke(CommandArgs args) throws Throwable {
+            try {
+                return method.invoke(obj, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static class TypedMethodHandleInvoker implements TypedInvoker {
+
+        private final MethodHandle handle;
+
+        TypedMethodHandleInvoker(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(Object[] params) throws Throwable {
+            return (Object) handle.invokeExact(params);
+        }
+    }
+
+    private static class TypedReflectiveInvoker implements TypedInvoker {
+
+        private final Method method;
+        private final Object obj;
+
+        TypedReflectiveInvoker(Method method, Object obj) {
+            this.method = method;
+            this.obj = obj;
+        }
+
+        @Override
+        public Object invoke(Object[] params) throws Throwable {
+            try {
+                return method.invoke(obj, params);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+}
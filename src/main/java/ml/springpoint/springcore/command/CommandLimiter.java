@@ -0,0 +1,150 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command Framework - CommandLimiter <br>
+ * The cooldown of a single command, see {@link Command#cooldown()} and
+ * {@link Command#rate()}. Each player gets a token bucket that holds up to
+ * rate uses and refills one use every cooldown / rate milliseconds.
+ * <p/>
+ * A bucket is stored as the single time at which it will be full again, so a
+ * check is one compare-and-set and refilling happens implicitly as time passes.
+ * Players whose bucket is full are dropped from the table every so often, which
+ * keeps the table as small as the amount of players actually on a cooldown.
+ * The console and command blocks are never limited.
+ *
+ * @author SirFaizdat
+ */
+public class CommandLimiter {
+
+    private static final long PURGE_INTERVAL = 60000L;
+
+    private final long period;
+    private final long interval;
+    private final ConcurrentMap<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /**
+     * @param cooldown The time in milliseconds in which the uses can be spent
+     * @param rate     The amount of uses per cooldown, at least one
+     */
+    public CommandLimiter(long cooldown, int rate) {
+        if (cooldown <= 0) {
+            throw new IllegalArgumentException("The cooldown must be positive");
+        }
+        this.period = cooldown;
+        this.interval = Math.max(1L, cooldown / Math.max(1, rate));
+    }
+
+    /**
+     * Creates the limiter of a command
+     *
+     * @return The limiter, or null if the command has no cooldown
+     */
+    public static CommandLimiter create(Command command) {
+        return command.cooldown() > 0 ? new CommandLimiter(command.cooldown(), command.rate()) : null;
+    }
+
+    /**
+     * Takes a use from the bucket of a sender.
+     *
+     * @param sender The sender of the command
+     * @return 0 if the sender may use the command, else the amount of milliseconds
+     * until they can use it again
+     */
+    public long tryAcquire(CommandSender sender) {
+        if (!(sender instanceof Player)) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        purge(now);
+        UUID uuid = ((Player) sender).getUniqueId();
+        AtomicLong bucket = buckets.get(uuid);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(now + interval);
+            bucket = buckets.putIfAbsent(uuid, created);
+            if (bucket == null) {
+                return 0;
+            }
+        }
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + interval;
+            if (next - now > period) {
+                return next - period - now;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives a sender back a use that was taken, ie. when the command could not run after all.
+     */
+    public void release(CommandSender sender) {
+        if (sender instanceof Player) {
+            AtomicLong bucket = buckets.get(((Player) sender).getUniqueId());
+            if (bucket != null) {
+                bucket.addAndGet(-interval);
+            }
+        }
+    }
+
+    /**
+     * Gives a sender all of their uses back.
+     */
+    public void reset(CommandSender sender) {
+        if (sender instanceof Player) {
+            buckets.remove(((Player) sender).getUniqueId());
+        }
+    }
+
+    /**
+     * Gets the amount of players that are currently tracked
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    private void purge(long now) {
+        long purgeAt = nextPurge.get();
+        if (now < purgeAt || !nextPurge.compareAndSet(purgeAt, now + PURGE_INTERVAL)) {
+            return;
+        }
+        Iterator<Map.Entry<UUID, AtomicLong>> it = buckets.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, AtomicLong> entry = it.next();
+            if (entry.getValue().get() <= now) {
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+}
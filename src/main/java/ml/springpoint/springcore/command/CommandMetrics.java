@@ -0,0 +1,232 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Command Framework - CommandMetrics <br>
+ * Counters and latency histograms of a single {@link CommandNode}. Metrics are
+ * off by default; while they are off, dispatching a command only pays for one
+ * check of {@link #isEnabled()} and never reads the clock.
+ *
+ * @author SirFaizdat
+ */
+public class CommandMetrics {
+
+    private static volatile boolean enabled = false;
+
+    private final AtomicLong invocations = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong denials = new AtomicLong();
+    private final Histogram commandLatency = new Histogram();
+    private final Histogram completionLatency = new Histogram();
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns metrics on or off for every command framework.
+     */
+    public static void setEnabled(boolean enabled) {
+        CommandMetrics.enabled = enabled;
+    }
+
+    /**
+     * Records a finished call of the command.
+     *
+     * @param nanos  How long the call took
+     * @param failed Whether the command threw something
+     */
+    public void recordCommand(long nanos, boolean failed) {
+        invocations.incrementAndGet();
+        if (failed) {
+            errors.incrementAndGet();
+        }
+        commandLatency.record(nanos);
+    }
+
+    /**
+     * Records a finished call of the tab completer.
+     */
+    public void recordCompletion(long nanos, boolean failed) {
+        if (failed) {
+            errors.incrementAndGet();
+        }
+        completionLatency.record(nanos);
+    }
+
+    /**
+     * Records a sender that was denied for lacking the permission.
+     */
+    public void recordDenial() {
+        denials.incrementAndGet();
+    }
+
+    public long getInvocations() {
+        return invocations.get();
+    }
+
+    /**
+     * Gets the amount of commands and completers that threw something
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getDenials() {
+        return denials.get();
+    }
+
+    public Histogram getCommandLatency() {
+        return commandLatency;
+    }
+
+    public Histogram getCompletionLatency() {
+        return completionLatency;
+    }
+
+    /**
+     * Whether anything was recorded since the last reset
+     */
+    public boolean isEmpty() {
+        return invocations.get() == 0 && denials.get() == 0 && errors.get() == 0
+                && completionLatency.getCount() == 0;
+    }
+
+    public void reset() {
+        invocations.set(0);
+        errors.set(0);
+        denials.set(0);
+        commandLatency.reset();
+        completionLatency.reset();
+    }
+
+    /**
+     * Gets the metrics as plain values, for writing them to a JSON file.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("invocations", getInvocations());
+        map.put("errors", getErrors());
+        map.put("denials", getDenials());
+        map.put("command-latency", commandLatency.toMap());
+        map.put("completion-latency", completionLatency.toMap());
+        return map;
+    }
+
+    /**
+     * A latency histogram with a fixed bucket for every power of two nanoseconds.
+     * Recording a value is a couple of atomic increments, and percentiles are
+     * accurate to within a factor of two, which is plenty to find slow commands.
+     */
+    public static class Histogram {
+
+        private static final int BUCKETS = 40; // 2^39ns is about 9 minutes
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)));
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long current;
+            while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+                // Another thread recorded a new max at the same time, try again
+            }
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * Gets the average in nanoseconds
+         */
+        public long getMean() {
+            long n = count.get();
+            return n == 0 ? 0 : total.get() / n;
+        }
+
+        /**
+         * Gets the highest value in nanoseconds
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Gets an upper bound of a percentile.
+         *
+         * @param percentile The percentile, ie. 99 for the 99th percentile
+         * @return The value in nanoseconds that at least that percentage of the calls took
+         * less than, or 0 if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(n * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(i == 0 ? 0 : 1L << i, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            total.set(0);
+            max.set(0);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", getCount());
+            map.put("mean-nanos", getMean());
+            map.put("p50-nanos", getPercentile(50));
+            map.put("p99-nanos", getPercentile(99));
+            map.put("max-nanos", getMax());
+            long[] counts = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+            }
+            map.put("buckets", counts);
+            return map;
+        }
+
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Command Framework - CommandNode <br>
+ * A single token of a command path inside of the {@link CommandTree}. The
+ * command 'test.subcommand' is stored as the node 'subcommand' below the
+ * root node 'test'. Children are looked up case-insensitively, so resolving
+ * a node never has to lowercase or concatenate the typed arguments.
+ *
+ * @author SirFaizdat
+ */
+public class CommandNode {
+
+    private final String name;
+    private final CommandNode parent;
+    private final int depth;
+    private final Map<String, CommandNode> children = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private CommandHandler command;
+    private CompleterHandler completer;
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    CommandNode(String name, CommandNode parent) {
+        this.name = name;
+        this.parent = parent;
+        this.depth = parent == null ? -1 : parent.depth + 1;
+    }
+
+    CommandNode getChild(String token) {
+        return children.get(token);
+    }
+
+    CommandNode getOrCreateChild(String token) {
+        CommandNode child = children.get(token);
+        if (child == null) {
+            child = new CommandNode(token.toLowerCase(), this);
+            children.put(child.name, child);
+        }
+        return child;
+    }
+
+    // Used for 'plugin:label' so that both labels share the same sub-tree.
+    void putChild(String token, CommandNode child) {
+        children.put(token, child);
+    }
+
+    // Removes every token that points to the child, including 'plugin:label' ones.
+    void removeChild(CommandNode child) {
+        children.values().removeAll(Collections.singleton(child));
+    }
+
+    void clearChildren() {
+        children.clear();
+    }
+
+    /**
+     * Whether this node has no command, no completer and no children
+     */
+    public boolean isEmpty() {
+        return command == null && completer == null && children.isEmpty();
+    }
+
+    /**
+     * Gets the token of this node, ie. 'subcommand' for 'test.subcommand'
+     */
+    public String getName() {
+        return name;
+    }
+
+    public CommandNode getParent() {
+        return parent;
+    }
+
+    /**
+     * Gets the amount of sub command tokens between this node and its root.
+     * The root command has a depth of 0, 'test.subcommand' has a depth of 1.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the full path of this node
+     *
+     * @return Something like 'test.subcommand'
+     */
+    public String getPath() {
+        if (parent == null || parent.parent == null) {
+            return name;
+        }
+        return parent.getPath() + '.' + name;
+    }
+
+    public Collection<CommandNode> getChildren() {
+        return Collections.unmodifiableCollection(children.values());
+    }
+
+    public CommandHandler getCommand() {
+        return command;
+    }
+
+    void setCommand(CommandHandler command) {
+        this.command = command;
+    }
+
+    public CompleterHandler getCompleter() {
+        return completer;
+    }
+
+    void setCompleter(CompleterHandler completer) {
+        this.completer = completer;
+    }
+
+    /**
+     * Gets the metrics of the command and completer of this node. These are only
+     * recorded while {@link CommandMetrics#isEnabled()} is true.
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+/**
+ * Command Framework - CommandRegistry <br>
+ * Registers the {@link Command} and {@link Completer} methods of a class without
+ * scanning it at runtime. Implementations are generated at compile time by the
+ * springcore-processor annotation processor, one per class with annotated methods,
+ * and are named after that class with {@link #SUFFIX} appended, ie.
+ * 'com.example.Commands_CommandRegistry' for 'com.example.Commands'. Nested
+ * classes have the '$' of their binary name replaced with '_'.
+ *
+ * @param <T> The class that the commands are declared in
+ * @author SirFaizdat
+ */
+public interface CommandRegistry<T> {
+
+    String SUFFIX = "_CommandRegistry";
+
+    /**
+     * Registers all of the commands and completers of the object.
+     *
+     * @param obj       The object to register the commands of
+     * @param framework The framework to register them with
+     * @throws ReflectiveOperationException If a method could not be found
+     */
+    void register(T obj, CommandFramework framework) throws ReflectiveOperationException;
+
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import ml.springpoint.springcore.SpringPlugin;
+import ml.springpoint.springcore.json.GsonFactory;
+import org.bukkit.command.CommandSender;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command Framework - CommandStats <br>
+ * The built-in '/springcore commands stats' command, which shows the
+ * {@link CommandMetrics} of every plugin's commands.
+ *
+ * @author SirFaizdat
+ */
+public class CommandStats {
+
+    private static final String FILE_NAME = "command-stats.json";
+
+    private final SpringPlugin plugin;
+
+    public CommandStats(SpringPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Command(name = "springcore.commands.stats", permission = "springcore.commands.stats",
+            description = "Shows how often commands are used and how long they take.",
+            usage = "/springcore commands stats [on|off|reset|dump]")
+    public void stats(CommandArgs args) {
+        CommandSender sender = args.getSender();
+        String action = args.length() == 0 ? "" : args.getArgs(0).toLowerCase();
+        switch (action) {
+            case "on":
+            case "off":
+                CommandMetrics.setEnabled(action.equals("on"));
+                plugin.getMessages().send(sender, "command-stats-toggled", action);
+                return;
+            case "reset":
+                for (CommandFramework framework : CommandFramework.getFrameworks()) {
+                    for (CommandNode node : getNodes(framework)) {
+                        node.getMetrics().reset();
+                    }
+                }
+                PermissionCache.getInstance().resetStats();
+                plugin.getMessages().send(sender, "command-stats-reset");
+                return;
+            case "dump":
+                File file = new File(plugin.getDataFolder(), FILE_NAME);
+                if (dump(file)) {
+                    plugin.getMessages().send(sender, "command-stats-dumped", file.getPath());
+                }
+                return;
+            default:
+                show(sender);
+        }
+    }
+
+    private void show(CommandSender sender) {
+        if (!CommandMetrics.isEnabled()) {
+            plugin.getMessages().send(sender, "command-stats-disabled");
+        }
+        for (CommandFramework framework : CommandFramework.getFrameworks()) {
+            for (CommandNode node : getNodes(framework)) {
+                CommandMetrics metrics = node.getMetrics();
+                if (metrics.isEmpty()) {
+                    continue;
+                }
+                CommandMetrics.Histogram latency = metrics.getCommandLatency();
+                plugin.getMessages().send(sender, "command-stats-line", framework.getPlugin().getName(),
+                        node.getPath().replace('.', ' '), metrics.getInvocations(), metrics.getErrors(),
+                        metrics.getDenials(), millis(latency.getMean()), millis(latency.getPercentile(99)),
+                        millis(latency.getMax()));
+            }
+            for (AsyncCommandPool pool : framework.getAsyncPools()) {
+                plugin.getMessages().send(sender, "command-stats-pool", pool.getName(), pool.getActiveCount(),
+                        pool.getMaxThreads(), pool.getQueueDepth(), pool.getQueueCapacity(),
+                        pool.getCompletedCount(), pool.getRejectedCount());
+            }
+        }
+        PermissionCache permissions = PermissionCache.getInstance();
+        plugin.getMessages().send(sender, "command-stats-permissions", permissions.getHits(),
+                permissions.getMisses(), String.format("%.1f", permissions.getHitRate() * 100));
+    }
+
+    /**
+     * Writes the metrics of every command to a JSON file.
+     *
+     * @param file The file to write to
+     * @return true if the file was written
+     */
+    public boolean dump(File file) {
+        Map<String, Object> plugins = new LinkedHashMap<>();
+        Map<String, Object> pools = new LinkedHashMap<>();
+        for (CommandFramework framework : CommandFramework.getFrameworks()) {
+            for (AsyncCommandPool pool : framework.getAsyncPools()) {
+                pools.put(pool.getName(), pool.toMap());
+            }
+            Map<String, Object> commands = new LinkedHashMap<>();
+            for (CommandNode node : getNodes(framework)) {
+                if (!node.getMetrics().isEmpty()) {
+                    commands.put(node.getPath(), node.getMetrics().toMap());
+                }
+            }
+            plugins.put(framework.getPlugin().getName(), commands);
+        }
+        Map<String, Object> permissions = new LinkedHashMap<>();
+        permissions.put("hits", PermissionCache.getInstance().getHits());
+        permissions.put("misses", PermissionCache.getInstance().getMisses());
+        permissions.put("hit-rate", PermissionCache.getInstance().getHitRate());
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("permission-cache", permissions);
+        stats.put("commands", plugins);
+        stats.put("async-pools", pools);
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(GsonFactory.getPrettyGson().toJson(stats));
+            return true;
+        } catch (IOException e) {
+            plugin.log("&cError: &7Could not write the command stats to &c%s&7.", file.getName());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static List<CommandNode> getNodes(CommandFramework framework) {
+        List<CommandNode> nodes = new ArrayList<>();
+        addNodes(framework.getCommandTree().getRoots(), nodes);
+        return nodes;
+    }
+
+    private static void addNodes(Collection<CommandNode> children, List<CommandNode> nodes) {
+        for (CommandNode node : children) {
+            nodes.add(node);
+            addNodes(node.getChildren(), nodes);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1000000.0);
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command Framework - CommandSuggestions <br>
+ * BK-trees of every registered command path, used to suggest the closest
+ * commands when someone makes a typo. Paths are compared by their edit
+ * distance, and the tree lets a lookup skip every branch that can't be within
+ * the allowed distance, so only a small part of the paths are ever compared.
+ * There is a tree for every amount of tokens, so that 'test sub' is only ever
+ * compared to other paths of two tokens.
+ *
+ * @author SirFaizdat
+ */
+public class CommandSuggestions {
+
+    /**
+     * The most typos a suggestion may be away from what was typed.
+     */
+    public static final int MAX_DISTANCE = 3;
+
+    private final Map<Integer, Node> roots = new HashMap<>(); // One tree per amount of tokens
+    private int size;
+    private int maxTokens;
+
+    /**
+     * Adds a command path
+     *
+     * @param path The dotted path, ie. 'test.subcommand'
+     */
+    public synchronized void add(String path) {
+        String key = path.replace('.', ' ').toLowerCase(Locale.ENGLISH);
+        int tokens = countTokens(key);
+        maxTokens = Math.max(maxTokens, tokens);
+        Node node = roots.get(tokens);
+        if (node == null) {
+            roots.put(tokens, new Node(key));
+            size++;
+            return;
+        }
+        int[] buffer = new int[key.length() + 1];
+        while (true) {
+            int distance = distance(node.path, key, buffer);
+            if (distance == 0) {
+                node.removed = false;
+                return; // Already in the tree
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(key));
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Removes a command path. BK-trees can't remove nodes, so the path is only
+     * hidden from lookups until it is added again.
+     *
+     * @param path The dotted path, ie. 'test.subcommand'
+     */
+    public synchronized void remove(String path) {
+        String key = path.replace('.', ' ').toLowerCase(Locale.ENGLISH);
+        int[] buffer = new int[key.length() + 1];
+        Node node = roots.get(countTokens(key));
+        while (node != null) {
+            int distance = distance(node.path, key, buffer);
+            if (distance == 0) {
+                node.removed = true;
+                return;
+            }
+            node = node.children.get(distance);
+        }
+    }
+
+    /**
+     * Finds the registered paths closest to what was typed.
+     *
+     * @param label The label of the base command
+     * @param args  The arguments typed after the label
+     * @param limit The most suggestions to return
+     * @return The closest paths with spaces instead of dots, best first
+     */
+    public synchronized List<String> suggest(String label, String[] args, int limit) {
+        List<String> best = new ArrayList<>(limit);
+        List<Integer> distances = new ArrayList<>(limit);
+        StringBuilder typed = new StringBuilder(label.toLowerCase(Locale.ENGLISH));
+        // Try every amount of tokens, since the arguments after the command are unknown
+        for (int tokens = 1; tokens <= maxTokens && tokens <= args.length + 1; tokens++) {
+            if (tokens > 1) {
+                typed.append(' ').append(args[tokens - 2].toLowerCase(Locale.ENGLISH));
+            }
+            Node root = roots.get(tokens);
+            if (root == null) {
+                continue;
+            }
+            String query = typed.toString();
+            int threshold = Math.max(1, Math.min(MAX_DISTANCE, query.length() / 3));
+            search(root, query, threshold, new int[query.length() + 1], best, distances, limit);
+        }
+        return best;
+    }
+
+    private void search(Node node, String query, int threshold, int[] buffer, List<String> best,
+                        List<Integer> distances, int limit) {
+        int distance = distance(node.path, query, buffer);
+        if (distance <= threshold && !node.removed && !best.contains(node.path)) {
+            int index = 0;
+            while (index < distances.size() && distances.get(index) <= distance) {
+                index++;
+            }
+            if (index < limit) {
+                best.add(index, node.path);
+                distances.add(index, distance);
+                if (best.size() > limit) {
+                    best.remove(limit);
+                    distances.remove(limit);
+                }
+            }
+        }
+        for (int d = Math.max(1, distance - threshold); d <= distance + threshold; d++) {
+            Node child = node.children.get(d);
+            if (child != null) {
+                search(child, query, threshold, buffer, best, distances, limit);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of paths in the tree, including removed ones
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int countTokens(String path) {
+        int tokens = 1;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == ' ') {
+                tokens++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * The Levenshtein distance between two strings, using a single row that
+     * is the length of b plus one.
+     */
+    private static int distance(String a, String b, int[] row) {
+        int m = b.length();
+        for (int j = 0; j <= m; j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int above = row[j];
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(Math.min(row[j - 1] + 1, above + 1), diagonal + cost);
+                diagonal = above;
+            }
+        }
+        return row[m];
+    }
+
+    private static class Node {
+
+        private final String path;
+        private final Map<Integer, Node> children = new HashMap<>();
+        private boolean removed;
+
+        private Node(String path) {
+            this.path = path;
+        }
+
+    }
+
+}
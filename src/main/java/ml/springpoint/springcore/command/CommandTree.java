@@ -0,0 +1,162 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Command Framework - CommandTree <br>
+ * A case-insensitive token trie of every registered command and completer.
+ * Paths are split once when they are registered, so that dispatching a command
+ * or a tab completion is a single left-to-right walk over the arguments.
+ *
+ * @author SirFaizdat
+ */
+public class CommandTree {
+
+    private final CommandNode root = new CommandNode(null, null);
+
+    /**
+     * Gets the node of a path, creating it and any missing parents.
+     *
+     * @param path The dotted path, ie. 'test.subcommand'
+     * @return The node at the end of the path
+     */
+    public CommandNode getOrCreate(String path) {
+        CommandNode node = root;
+        for (String token : path.split("\\.")) {
+            node = node.getOrCreateChild(token);
+        }
+        return node;
+    }
+
+    /**
+     * Gets the node of a path.
+     *
+     * @param path The dotted path, ie. 'test.subcommand'
+     * @return The node, or null if nothing was registered under that path
+     */
+    public CommandNode find(String path) {
+        CommandNode node = root;
+        for (String token : path.split("\\.")) {
+            node = node.getChild(token);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Makes a root label point to the same sub-tree as another root label.
+     * This is used for the 'plugin:label' fallback labels Bukkit registers.
+     *
+     * @param alias The alternative root label
+     * @param label The root label that has already been created
+     */
+    public void aliasRoot(String alias, String label) {
+        CommandNode node = root.getChild(label);
+        if (node != null && root.getChild(alias) == null) {
+            root.putChild(alias, node);
+        }
+    }
+
+    /**
+     * Gets every root command node, without the 'plugin:label' duplicates.
+     */
+    public Collection<CommandNode> getRoots() {
+        return new LinkedHashSet<>(root.getChildren());
+    }
+
+    /**
+     * Removes every command and completer of an object, along with the nodes
+     * that are left empty.
+     *
+     * @param owner The object the command and completer methods belong to
+     * @return The paths of the commands that were removed
+     */
+    public List<String> remove(Object owner) {
+        List<String> removed = new ArrayList<>();
+        remove(root, owner, removed);
+        return removed;
+    }
+
+    private void remove(CommandNode node, Object owner, List<String> removed) {
+        for (CommandNode child : new LinkedHashSet<>(node.getChildren())) {
+            if (child.getCommand() != null && child.getCommand().getObject() == owner) {
+                removed.add(child.getPath());
+                child.setCommand(null);
+            }
+            if (child.getCompleter() != null && child.getCompleter().getObject() == owner) {
+                child.setCompleter(null);
+            }
+            remove(child, owner, removed);
+            if (child.isEmpty()) {
+                node.removeChild(child);
+            }
+        }
+    }
+
+    /**
+     * Removes every node.
+     */
+    public void clear() {
+        root.clearChildren();
+    }
+
+    /**
+     * Finds the deepest node with a command handler that matches the arguments.
+     *
+     * @param label The label of the base command
+     * @param args  The arguments typed after the label
+     * @return The matching node, or null if no command handles the input
+     */
+    public CommandNode resolveCommand(String label, String[] args) {
+        return resolve(label, args, false);
+    }
+
+    /**
+     * Finds the deepest node with a tab completer that matches the arguments.
+     *
+     * @param label The label of the base command
+     * @param args  The arguments typed after the label
+     * @return The matching node, or null if no completer handles the input
+     */
+    public CommandNode resolveCompleter(String label, String[] args) {
+        return resolve(label, args, true);
+    }
+
+    private CommandNode resolve(String label, String[] args, boolean completer) {
+        CommandNode node = root.getChild(label);
+        CommandNode match = null;
+        for (int i = 0; node != null; i++) {
+            if ((completer ? node.getCompleter() : node.getCommand()) != null) {
+                match = node;
+            }
+            if (i >= args.length) {
+                break;
+            }
+            node = node.getChild(args[i]);
+        }
+        return match;
+    }
+
+}
@@ -26,7 +26,7 @@ import java.lang.annotation.Target;
  * Command Framework - Completer <br>
  * The completer annotation used to designate methods as command completers. All
  * methods should have a single CommandArgs argument and return a String List
- * object
+ * object, or a {@link CompletionSource} for large sets of completions
  *
  * @author minnymin3
  */
@@ -51,4 +51,19 @@ public @interface Completer {
      */
     String[] aliases() default {};
 
+    /**
+     * How long, in milliseconds, the completions are cached for each sender. While
+     * cached, typing more characters of the same argument filters the cached completions
+     * instead of calling the completer again. 0 disables the cache.
+     */
+    long cacheTime() default 0;
+
+    /**
+     * Whether or not the completer is called off of the server thread. Bukkit needs the
+     * completions right away, so the first tab press only starts the completer, and
+     * the completions are shown from the cache when the sender presses tab again.
+     * Async completers are always cached, for at least {@link CompletionCache#DEFAULT_ASYNC_TIME}.
+     */
+    boolean async() default false;
+
 }
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.lang.reflect.Method;
+
+/**
+ * Command Framework - CompleterHandler <br>
+ * A registered {@link Completer} method, along with its attributes.
+ *
+ * @author SirFaizdat
+ */
+public class CompleterHandler {
+
+    private final Object object;
+    private final Method method;
+    private final CommandInvoker invoker;
+    private final boolean async;
+    private final CompletionCache cache;
+
+    public CompleterHandler(Method method, Object object, CommandInvoker invoker) {
+        this.object = object;
+        this.method = method;
+        this.invoker = invoker;
+
+        Completer completer = method.getAnnotation(Completer.class);
+        this.async = completer != null && completer.async();
+        long cacheTime = completer == null ? 0 : completer.cacheTime();
+        if (async) {
+            cacheTime = Math.max(cacheTime, CompletionCache.DEFAULT_ASYNC_TIME);
+        }
+        this.cache = cacheTime > 0 ? new CompletionCache(cacheTime) : null;
+    }
+
+    /**
+     * Gets the object that the method belongs to
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public CommandInvoker getInvoker() {
+        return invoker;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets the cache of the completions
+     *
+     * @return The cache, or null if the completer is not cached
+     */
+    public CompletionCache getCache() {
+        return cache;
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command Framework - CompletionCache <br>
+ * Caches the completions of a single {@link Completer} for each sender. An entry is kept
+ * for the arguments it was created for, and is reused as long as the sender only types
+ * more characters of the last argument, by filtering the cached completions on the
+ * longer prefix.
+ * <p/>
+ * This relies on the completer returning every completion for the last argument, not
+ * ones that depend on what has been typed of it.
+ *
+ * @author SirFaizdat
+ */
+public class CompletionCache {
+
+    /**
+     * The minimum time in milliseconds that completions of async completers are cached for
+     */
+    public static final long DEFAULT_ASYNC_TIME = 5000L;
+
+    // Expired entries are only purged once there are more senders than this, and at most
+    // once per cache time, since nothing can expire sooner than that
+    private static final int PURGE_THRESHOLD = 64;
+
+    private final long timeNanos;
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<Object> pending = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+    private final AtomicLong nextPurge;
+
+    public CompletionCache(long timeMillis) {
+        this.timeNanos = TimeUnit.MILLISECONDS.toNanos(timeMillis);
+        this.nextPurge = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Gets the key that a sender's completions are cached under
+     */
+    public static Object getKey(CommandSender sender) {
+        return sender instanceof Player ? ((Player) sender).getUniqueId() : sender.getName();
+    }
+
+    /**
+     * Gets the cached completions for the arguments.
+     *
+     * @param key  The key of the sender, see {@link #getKey(CommandSender)}
+     * @param args The arguments being completed
+     * @return The completions filtered on the last argument, or null if nothing usable is cached
+     */
+    public List<String> get(Object key, String[] args) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.matches(args)) {
+            return null;
+        }
+        if (System.nanoTime() - entry.time > timeNanos) {
+            entries.remove(key, entry);
+            return null;
+        }
+
+        String last = args.length == 0 ? "" : args[args.length - 1];
+        List<String> completions = new ArrayList<>(entry.completions.size());
+        for (String completion : entry.completions) {
+            if (completion.regionMatches(true, 0, last, 0, last.length())) {
+                completions.add(completion);
+            }
+        }
+        return completions;
+    }
+
+    /**
+     * Caches the completions for the arguments.
+     *
+     * @param key         The key of the sender, see {@link #getKey(CommandSender)}
+     * @param args        The arguments that were completed
+     * @param completions The completions returned by the completer, may be null
+     */
+    public void put(Object key, String[] args, List<String> completions) {
+        if (completions == null) {
+            completions = Collections.emptyList();
+        }
+        if (entries.size() > PURGE_THRESHOLD) {
+            long now = System.nanoTime();
+            long purgeAt = nextPurge.get();
+            if (now - purgeAt >= 0 && nextPurge.compareAndSet(purgeAt, now + timeNanos)) {
+                purge();
+            }
+        }
+        entries.put(key, new Entry(args, new ArrayList<>(completions)));
+    }
+
+    /**
+     * Marks that the completer is being called for a sender, so that it is not
+     * called again for them before it finishes.
+     *
+     * @return false if the completer is already being called for the sender
+     */
+    public boolean startPending(Object key) {
+        return pending.add(key);
+    }
+
+    public void stopPending(Object key) {
+        pending.remove(key);
+    }
+
+    /**
+     * Removes all expired entries
+     */
+    public void purge() {
+        long now = System.nanoTime();
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().time > timeNanos) {
+                it.remove();
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final String[] args;
+        private final List<String> completions;
+        private final long time = System.nanoTime();
+
+        Entry(String[] args, List<String> completions) {
+            this.args = args.clone();
+            this.completions = completions;
+        }
+
+        // The same arguments, except that the last one may have been typed further
+        boolean matches(String[] other) {
+            if (other.length != args.length) {
+                return false;
+            }
+            int last = args.length - 1;
+            for (int i = 0; i < last; i++) {
+                if (!args[i].equalsIgnoreCase(other[i])) {
+                    return false;
+                }
+            }
+            return last < 0 || other[last].regionMatches(true, 0, args[last], 0, args[last].length());
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Command Framework - CompletionSource <br>
+ * A set of completions indexed by their lowercase form, so that completing a prefix only
+ * looks at the completions that start with it. Return one from a {@link Completer} method
+ * instead of a list when there are a lot of completions, ie. every warp on the server:
+ * <pre>
+ * private final CompletionSource warps = new CompletionSource();
+ *
+ * &#64;Completer(name = "warp")
+ * public CompletionSource completeWarp(CommandArgs args) {
+ *     return warps;
+ * }
+ * </pre>
+ * Completions can be added and removed at any time, from any thread.
+ *
+ * @author SirFaizdat
+ */
+public class CompletionSource {
+
+    private final NavigableMap<String, String> completions = new ConcurrentSkipListMap<>();
+
+    public CompletionSource() {
+    }
+
+    public CompletionSource(Collection<String> completions) {
+        addAll(completions);
+    }
+
+    public void add(String completion) {
+        completions.put(completion.toLowerCase(Locale.ENGLISH), completion);
+    }
+
+    public void addAll(Collection<String> completions) {
+        for (String completion : completions) {
+            add(completion);
+        }
+    }
+
+    public void remove(String completion) {
+        completions.remove(completion.toLowerCase(Locale.ENGLISH));
+    }
+
+    public void clear() {
+        completions.clear();
+    }
+
+    public boolean contains(String completion) {
+        return completions.containsKey(completion.toLowerCase(Locale.ENGLISH));
+    }
+
+    public int size() {
+        return completions.size();
+    }
+
+    /**
+     * Gets all completions starting with a prefix, ignoring case, in alphabetical order.
+     *
+     * @param prefix The prefix typed by the sender
+     * @return The matching completions
+     */
+    public List<String> complete(String prefix) {
+        String from = prefix.toLowerCase(Locale.ENGLISH);
+        List<String> matches = new ArrayList<>();
+        for (String completion : completions.tailMap(from, true).values()) {
+            if (!completion.regionMatches(true, 0, from, 0, from.length())) {
+                break; // Past the last completion with the prefix
+            }
+            matches.add(completion);
+        }
+        return matches;
+    }
+
+}
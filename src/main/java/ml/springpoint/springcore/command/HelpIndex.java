@@ -0,0 +1,230 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.bukkit.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.help.HelpTopic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Command Framework - HelpIndex <br>
+ * The help of every command of a framework, kept up to date as commands are
+ * registered and unregistered. The help text of a command lists its usage,
+ * description and sub-commands. It is rendered once for every set of permissions
+ * a reader has. The text a player was shown is also kept under their permission
+ * fingerprint from {@link PermissionCache}, so showing it to them again costs no
+ * permission checks at all until their permissions are checked again.
+ * <p/>
+ * Bukkit's /help pages the text for us, see {@link #createTopic(String, String)}.
+ *
+ * @author SirFaizdat
+ */
+public class HelpIndex {
+
+    private final NavigableMap<String, Entry> entries = new TreeMap<>();
+    private final Map<String, Map<BitSet, String>> rendered = new ConcurrentHashMap<>();
+    private final Cache<Object, ConcurrentMap<String, String>> readers = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * Adds or replaces the help of a command
+     */
+    public synchronized void add(CommandHandler handler) {
+        String path = handler.getName().toLowerCase(Locale.ENGLISH);
+        entries.put(path, new Entry(path, handler));
+        invalidate();
+    }
+
+    /**
+     * Removes the help of a command
+     *
+     * @param path The dotted path, ie. 'test.subcommand'
+     */
+    public synchronized void remove(String path) {
+        if (entries.remove(path.toLowerCase(Locale.ENGLISH)) != null) {
+            invalidate();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        invalidate();
+    }
+
+    private void invalidate() {
+        rendered.clear();
+        readers.invalidateAll();
+    }
+
+    /**
+     * Gets the help of a command and all of its sub-commands, as the sender may see it.
+     *
+     * @param sender The sender that reads the help
+     * @param root   The dotted path of the command, or an empty string for every command
+     * @return The help text, with one line for every command
+     */
+    public String render(CommandSender sender, String root) {
+        Object fingerprint = PermissionCache.getInstance().getFingerprint(sender);
+        ConcurrentMap<String, String> seen = fingerprint != null ? readers.getIfPresent(fingerprint) : null;
+        if (seen != null) {
+            String text = seen.get(root);
+            if (text != null) {
+                return text;
+            }
+        }
+        String text = render(sender, root, getSection(root));
+        if (fingerprint != null) {
+            if (seen == null) {
+                seen = new ConcurrentHashMap<>();
+                ConcurrentMap<String, String> existing = readers.asMap().putIfAbsent(fingerprint, seen);
+                if (existing != null) {
+                    seen = existing;
+                }
+            }
+            seen.put(root, text);
+        }
+        return text;
+    }
+
+    private String render(CommandSender sender, String root, List<Entry> section) {
+        BitSet key = new BitSet(section.size());
+        for (int i = 0; i < section.size(); i++) {
+            if (section.get(i).canSee(sender)) {
+                key.set(i);
+            }
+        }
+        Map<BitSet, String> cache = rendered.get(root);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            rendered.put(root, cache);
+        }
+        String text = cache.get(key);
+        if (text == null) {
+            text = render(section, key);
+            cache.put(key, text);
+        }
+        return text;
+    }
+
+    /**
+     * Whether the sender may see any of the commands under a root
+     */
+    public boolean canSee(CommandSender sender, String root) {
+        for (Entry entry : getSection(root)) {
+            if (entry.canSee(sender)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized List<Entry> getSection(String root) {
+        if (root.isEmpty()) {
+            return new ArrayList<>(entries.values());
+        }
+        List<Entry> section = new ArrayList<>();
+        Entry entry = entries.get(root);
+        if (entry != null) {
+            section.add(entry);
+        }
+        // Every path that starts with 'root.' comes right after it
+        section.addAll(entries.subMap(root + '.', true, root + '/', false).values());
+        return section;
+    }
+
+    private static String render(List<Entry> section, BitSet visible) {
+        StringBuilder text = new StringBuilder();
+        for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1)) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(section.get(i).line);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Creates the topic for Bukkit's /help.
+     *
+     * @param name The name of the topic, ie. '/test' or the name of the plugin
+     * @param root The dotted path of the command, or an empty string for every command
+     */
+    public HelpTopic createTopic(String name, String root) {
+        return new Topic(name, root);
+    }
+
+    private static class Entry {
+
+        private final String permission;
+        private final String description;
+        private final String line;
+
+        private Entry(String path, CommandHandler handler) {
+            this.permission = handler.getPermission();
+            this.description = handler.getDescription();
+            String usage = handler.getUsage().isEmpty() ? "/" + path.replace('.', ' ') : handler.getUsage();
+            String line = ChatColor.GOLD + usage;
+            if (!handler.getDescription().isEmpty()) {
+                line += ChatColor.GRAY + ": " + ChatColor.WHITE + handler.getDescription();
+            }
+            this.line = line;
+        }
+
+        private boolean canSee(CommandSender sender) {
+            return permission.isEmpty() || PermissionCache.getInstance().hasPermission(sender, permission);
+        }
+
+    }
+
+    private class Topic extends HelpTopic {
+
+        private final String root;
+
+        private Topic(String name, String root) {
+            this.name = name;
+            this.root = root;
+            synchronized (HelpIndex.this) {
+                Entry entry = entries.get(root);
+                this.shortText = entry != null ? entry.description : "All commands for " + name;
+            }
+        }
+
+        @Override
+        public boolean canSee(CommandSender sender) {
+            return HelpIndex.this.canSee(sender, root);
+        }
+
+        @Override
+        public String getFullText(CommandSender forWho) {
+            return render(forWho, root);
+        }
+
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import net.milkbowl.vault.permission.Permission;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command Framework - PermissionCache <br>
+ * Remembers the permission checks of commands and completers per player, so that
+ * a permission plugin is only asked once for each command a player uses. The
+ * decisions of a player are forgotten when they join, quit or change worlds, and
+ * after {@link #DEFAULT_EXPIRY} milliseconds, since Bukkit has no event for
+ * permission attachments changing. Plugins that change permissions themselves
+ * should call {@link #invalidate(Player)}.
+ * <p/>
+ * Anything that is not a player, like the console, is never cached.
+ *
+ * @author SirFaizdat
+ */
+public class PermissionCache implements Listener {
+
+    /**
+     * The time in milliseconds after which the decisions of a player are checked again.
+     */
+    public static final long DEFAULT_EXPIRY = 30000L;
+
+    private static final PermissionCache INSTANCE = new PermissionCache();
+
+    private final ConcurrentMap<UUID, Decisions> players = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private volatile long expiry = DEFAULT_EXPIRY;
+    private volatile Permission vault = null;
+    private volatile Plugin plugin = null;
+
+    private PermissionCache() {
+    }
+
+    public static PermissionCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts invalidating decisions on player events, see {@link PlayerCache#register(Plugin)}.
+     * The cache is bypassed while it is not registered.
+     *
+     * @param plugin The plugin used to register the events.
+     */
+    public synchronized void register(Plugin plugin) {
+        if (this.plugin != null && this.plugin.isEnabled()) {
+            return;
+        }
+        players.clear();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.plugin = plugin;
+    }
+
+    /**
+     * Checks whether a sender has a permission, asking the permission plugin only if
+     * the decision isn't cached yet.
+     *
+     * @param sender     The sender to check
+     * @param permission The permission node
+     * @return true if the sender has the permission
+     */
+    public boolean hasPermission(CommandSender sender, String permission) {
+        if (!(sender instanceof Player) || plugin == null) {
+            return check(sender, permission);
+        }
+        Decisions decisions = getDecisions((Player) sender);
+        Boolean decision = decisions.map.get(permission);
+        if (decision != null) {
+            hits.incrementAndGet();
+            return decision;
+        }
+        misses.incrementAndGet();
+        boolean has = check(sender, permission);
+        decisions.map.put(permission, has);
+        return has;
+    }
+
+    /**
+     * Gets a fingerprint of the permissions of a sender. It stays the same object for as
+     * long as the cached decisions of the sender stay valid, so anything derived from
+     * their permissions can be cached under it, preferably in a map with weak keys.
+     *
+     * @param sender The sender
+     * @return The fingerprint, or null if the decisions of the sender aren't cached
+     */
+    public Object getFingerprint(CommandSender sender) {
+        if (!(sender instanceof Player) || plugin == null) {
+            return null;
+        }
+        return getDecisions((Player) sender);
+    }
+
+    private Decisions getDecisions(Player player) {
+        long now = System.currentTimeMillis();
+        Decisions decisions = players.get(player.getUniqueId());
+        if (decisions == null || now - decisions.created > expiry) {
+            decisions = new Decisions(now);
+            players.put(player.getUniqueId(), decisions);
+        }
+        return decisions;
+    }
+
+    private boolean check(CommandSender sender, String permission) {
+        Permission vault = this.vault;
+        return vault != null ? vault.has(sender, permission) : sender.hasPermission(permission);
+    }
+
+    /**
+     * Forgets every decision of a player.
+     */
+    public void invalidate(Player player) {
+        players.remove(player.getUniqueId());
+    }
+
+    /**
+     * Forgets every decision of every player, ie. after the permission plugin reloaded.
+     */
+    public void invalidateAll() {
+        players.clear();
+    }
+
+    /**
+     * Asks Vault rather than the players themselves for permissions, see
+     * {@link ml.springpoint.springcore.integration.vault.VaultIntegration#getPermission()}.
+     *
+     * @param vault The Vault permission provider, or null to ask the players again
+     */
+    public void setVault(Permission vault) {
+        this.vault = vault;
+        invalidateAll();
+    }
+
+    /**
+     * Sets the time in milliseconds after which the decisions of a player are checked again.
+     */
+    public void setExpiry(long expiry) {
+        this.expiry = expiry;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the share of permission checks that were answered from the cache
+     *
+     * @return A number between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin().equals(plugin)) {
+            plugin = null;
+            players.clear();
+        }
+    }
+
+    private static class Decisions {
+
+        private final long created;
+        private final ConcurrentMap<String, Boolean> map = new ConcurrentHashMap<>();
+
+        private Decisions(long created) {
+            this.created = created;
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Command Framework - PlayerCache <br>
+ * Keeps the online players by lowercase name, so that player arguments can be looked up
+ * without {@link Bukkit#getPlayerExact(String)} looping over every online player. It also
+ * keeps a {@link CompletionSource} of their names for completers.
+ *
+ * @author SirFaizdat
+ */
+public class PlayerCache implements Listener {
+
+    private static final PlayerCache INSTANCE = new PlayerCache();
+
+    private final Map<String, Player> players = new ConcurrentHashMap<>();
+    private final CompletionSource names = new CompletionSource();
+    private volatile Plugin plugin = null;
+
+    private PlayerCache() {
+    }
+
+    public static PlayerCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts keeping track of the online players. SpringCore does this when it enables,
+     * since every plugin that uses the framework depends on it and is disabled before it.
+     *
+     * @param plugin The plugin used to register the events.
+     */
+    public synchronized void register(Plugin plugin) {
+        if (this.plugin != null && this.plugin.isEnabled()) {
+            return;
+        }
+        players.clear();
+        names.clear();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        this.plugin = plugin;
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            add(player);
+        }
+    }
+
+    /**
+     * Gets an online player by their exact name, ignoring case.
+     *
+     * @param name The name of the player
+     * @return The player, or null if they are not online
+     */
+    public Player getPlayer(String name) {
+        if (plugin == null) {
+            return Bukkit.getPlayerExact(name);
+        }
+        return players.get(name.toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Gets the names of all online players, to return from a {@link Completer}.
+     * This is only kept up to date while the cache is registered.
+     */
+    public CompletionSource getNames() {
+        return names;
+    }
+
+    private void add(Player player) {
+        players.put(player.getName().toLowerCase(Locale.ENGLISH), player);
+        names.add(player.getName());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onJoin(PlayerJoinEvent event) {
+        add(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        players.remove(event.getPlayer().getName().toLowerCase(Locale.ENGLISH));
+        names.remove(event.getPlayer().getName());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin().equals(plugin)) {
+            plugin = null;
+            players.clear();
+            names.clear();
+        }
+    }
+
+}
@@ -20,6 +20,7 @@ package ml.springpoint.springcore.feature;
 import ml.springpoint.springcore.SpringPlugin;
 import ml.springpoint.springcore.command.CommandFeature;
 import ml.springpoint.springcore.integration.IntegrationFeature;
+import ml.springpoint.springcore.json.JsonWatcher;
 import ml.springpoint.springcore.menu.MenuFeature;
 import ml.springpoint.springcore.module.ModuleFeature;
 
@@ -55,6 +56,11 @@ import java.util.Map;
  * <td>Integration</td>
  * <td>Integrate with various plugins. Right now, the only supported plugin is Vault.</td>
  * </tr>
+ * <tr>
+ * <td>Watcher</td>
+ * <td>Reload the configurations of the plugin and its modules when their files are
+ * edited while the server is running.</td>
+ * </tr>
  * </table>
  *
  * @author SirFaizdat
@@ -72,6 +78,7 @@ public class FeatureManager {
         featureMap.put("commands", new CommandFeature(plugin));
         featureMap.put("menus", new MenuFeature(plugin));
         featureMap.put("integration", new IntegrationFeature(plugin));
+        featureMap.put("watcher", new JsonWatcher(plugin));
     }
 
     /**
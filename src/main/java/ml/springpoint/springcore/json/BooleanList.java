@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of booleans, see {@link JsonSection#getBooleans(String)}. Works
+ * like {@link IntList}.
+ *
+ * @author SirFaizdat
+ */
+public final class BooleanList extends AbstractList<Boolean> implements RandomAccess {
+
+    private final boolean[] values;
+
+    BooleanList(boolean[] values) {
+        this.values = values;
+    }
+
+    public boolean getBoolean(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Boolean get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Copies the values into a new array
+     */
+    public boolean[] toBooleanArray() {
+        return values.clone();
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of floats, see {@link JsonSection#getFloats(String)}. Works
+ * like {@link IntList}.
+ *
+ * @author SirFaizdat
+ */
+public final class FloatList extends AbstractList<Float> implements RandomAccess {
+
+    private final float[] values;
+
+    FloatList(float[] values) {
+        this.values = values;
+    }
+
+    public float getFloat(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Float get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Copies the values into a new array
+     */
+    public float[] toFloatArray() {
+        return values.clone();
+    }
+
+}
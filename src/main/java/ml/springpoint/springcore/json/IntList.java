@@ -0,0 +1,59 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list of ints, see {@link JsonSection#getInts(String)}. The values
+ * are shared with the cache of the configuration, so they can't be changed, and
+ * {@link #getInt(int)} reads them without boxing.
+ *
+ * @author SirFaizdat
+ */
+public final class IntList extends AbstractList<Integer> implements RandomAccess {
+
+    private final int[] values;
+
+    IntList(int[] values) {
+        this.values = values;
+    }
+
+    public int getInt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public Integer get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Copies the values into a new array
+     */
+    public int[] toIntArray() {
+        return values.clone();
+    }
+
+}
@@ -0,0 +1,365 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of the same maps and lists that {@link JsonLoader}
+ * reads, for configurations that hold a lot of data. Files start with a magic
+ * number, so {@link JsonLoader#load(File)} tells both formats apart on its own,
+ * and a configuration is switched to binary with {@link JsonConfig#setBinary(boolean)}.
+ * <p/>
+ * Every value is a tag byte followed by its data. Numbers are kept as the exact
+ * type they were loaded as (integers and longs as zigzag varints, doubles as their
+ * 8 raw bytes), strings are UTF-8 with a varint length, and lists and objects start
+ * with a varint count. Like Gson, entries that are null are not written.
+ * <p/>
+ * Files can be converted from the command line in either direction. Gson and Guava
+ * aren't shaded into SpringCore, so the server jar has to be on the class path too:
+ * <pre>java -cp SpringCore.jar:spigot.jar ml.springpoint.springcore.json.JsonBinary &lt;input&gt; &lt;output&gt;</pre>
+ *
+ * @author SirFaizdat
+ */
+public class JsonBinary {
+
+    private static final byte[] MAGIC = {(byte) 0xC5, 'S', 'C', 'B'};
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0, FALSE = 1, TRUE = 2, INT = 3, LONG = 4, DOUBLE = 5, STRING = 6,
+            LIST = 7, OBJECT = 8;
+
+    private JsonBinary() {
+    }
+
+    /**
+     * Whether the contents of a file start with the magic number of this format
+     *
+     * @param header The first bytes of the file
+     */
+    public static boolean isBinary(byte[] header) {
+        return header.length >= MAGIC.length && Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC);
+    }
+
+    // > Reading
+
+    /**
+     * Decodes an object that was encoded with {@link #encode(Map)}.
+     *
+     * @param data The contents of the file, starting with the magic number
+     * @return The entries of the object
+     * @throws JsonParseException If the data is not valid
+     */
+    public static Map<String, Object> decode(byte[] data) {
+        if (!isBinary(data) || data.length < MAGIC.length + 2) {
+            throw new JsonParseException("Not a binary JSON file");
+        }
+        if (data[MAGIC.length] != VERSION) {
+            throw new JsonParseException("Unsupported binary JSON version " + data[MAGIC.length]);
+        }
+        Reader reader = new Reader(data, MAGIC.length + 1);
+        try {
+            if (data[reader.position++] != OBJECT) {
+                throw new JsonParseException("Expected an object");
+            }
+            Map<String, Object> entries = reader.readObject();
+            if (reader.position != data.length) {
+                throw new JsonParseException("Unexpected data after the object");
+            }
+            return entries;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new JsonParseException("The binary JSON file is truncated");
+        }
+    }
+
+    private static class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        Object readValue() {
+            byte tag = data[position++];
+            switch (tag) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return false;
+                case TRUE:
+                    return true;
+                case INT:
+                    return (int) readZigzag();
+                case LONG:
+                    return readZigzag();
+                case DOUBLE:
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (data[position++] & 0xFF);
+                    }
+                    return Double.longBitsToDouble(bits);
+                case STRING:
+                    return readString();
+                case LIST:
+                    int size = readCount();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    return list;
+                case OBJECT:
+                    return readObject();
+                default:
+                    throw new JsonParseException("Unknown tag " + tag + " at " + (position - 1));
+            }
+        }
+
+        Map<String, Object> readObject() {
+            int size = readCount();
+            Map<String, Object> map = new LinkedHashMap<>(Math.max(4, size * 4 / 3 + 1));
+            for (int i = 0; i < size; i++) {
+                String key = JsonLoader.intern(readString());
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        String readString() {
+            int length = readCount();
+            if (length > data.length - position) {
+                throw new JsonParseException("The binary JSON file is truncated");
+            }
+            String string = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return string;
+        }
+
+        int readCount() {
+            long count = readVarint();
+            if (count < 0 || count > data.length - position) {
+                throw new JsonParseException("Invalid length " + count + " at " + position);
+            }
+            return (int) count;
+        }
+
+        long readZigzag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new JsonParseException("Invalid varint at " + position);
+        }
+
+    }
+
+    // > Writing
+
+    /**
+     * Encodes an object. Maps, lists, strings, numbers and booleans are written as
+     * they are, anything else is first turned into JSON like {@link JsonConfig#save()} would.
+     *
+     * @param entries The entries of the object
+     * @return The encoded bytes, including the magic number
+     */
+    public static ByteBuffer encode(Map<String, Object> entries) {
+        Writer writer = new Writer(8192);
+        writer.writeBytes(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeValue(entries);
+        return ByteBuffer.wrap(writer.data, 0, writer.size);
+    }
+
+    private static class Writer {
+
+        private byte[] data;
+        private int size;
+
+        Writer(int capacity) {
+            this.data = new byte[capacity];
+        }
+
+        void writeValue(Object value) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeByte(INT);
+                writeZigzag(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                writeByte(LONG);
+                writeZigzag((Long) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                writeByte(DOUBLE);
+                long bits = Double.doubleToRawLongBits(((Number) value).doubleValue());
+                for (int i = 56; i >= 0; i -= 8) {
+                    writeByte((byte) (bits >>> i));
+                }
+            } else if (value instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                int count = 0;
+                for (Object element : map.values()) {
+                    if (element != null) {
+                        count++;
+                    }
+                }
+                writeByte(OBJECT);
+                writeVarint(count);
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (entry.getValue() != null) {
+                        writeString(String.valueOf(entry.getKey()));
+                        writeValue(entry.getValue());
+                    }
+                }
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                writeByte(LIST);
+                writeVarint(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else {
+                writeValue(toValue(GsonFactory.getPrettyGson().toJsonTree(value)));
+            }
+        }
+
+        void writeString(String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeZigzag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((byte) value);
+        }
+
+        void writeByte(byte b) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = b;
+        }
+
+        void writeBytes(byte[] bytes) {
+            if (size + bytes.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(size * 2, size + bytes.length));
+            }
+            System.arraycopy(bytes, 0, data, size, bytes.length);
+            size += bytes.length;
+        }
+
+    }
+
+    // Turns a Gson tree into the maps and lists JsonLoader would have read
+    private static Object toValue(JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            return null;
+        } else if (element.isJsonObject()) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonElement> entry : ((JsonObject) element).entrySet()) {
+                map.put(entry.getKey(), toValue(entry.getValue()));
+            }
+            return map;
+        } else if (element.isJsonArray()) {
+            List<Object> list = new ArrayList<>();
+            for (JsonElement child : (JsonArray) element) {
+                list.add(toValue(child));
+            }
+            return list;
+        }
+        JsonPrimitive primitive = (JsonPrimitive) element;
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        } else if (primitive.isNumber()) {
+            return JsonLoader.parseNumber(primitive.getAsString());
+        }
+        return primitive.getAsString();
+    }
+
+    // > Conversion
+
+    /**
+     * Converts a file from JSON to binary or from binary to JSON, depending on
+     * the format of the input file.
+     *
+     * @param args The input file and the output file
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java -cp SpringCore.jar:spigot.jar " + JsonBinary.class.getName()
+                    + " <input> <output>");
+            System.out.println("Converts JSON to binary, or binary to JSON, depending on the format of the input.");
+            return;
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        boolean binary = JsonLoader.isBinary(input);
+        long start = System.currentTimeMillis();
+        Map<String, Object> entries = JsonLoader.load(input);
+        if (binary) {
+            // Plain Gson is enough for maps and lists, GsonFactory would load Bukkit's item classes
+            JsonIO.writeAtomically(output, new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create()
+                    .toJson(entries));
+        } else {
+            JsonIO.writeAtomically(output, encode(entries));
+        }
+        System.out.println(String.format("Converted %s (%s, %d bytes) to %s (%s, %d bytes) in %dms.",
+                input, binary ? "binary" : "JSON", input.length(), output, binary ? "JSON" : "binary",
+                output.length(), System.currentTimeMillis() - start));
+    }
+
+}
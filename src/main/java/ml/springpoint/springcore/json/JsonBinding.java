@@ -0,0 +1,267 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A {@link JsonConfig} bound to a class, see {@link JsonConfig#bind(Class)}. Every
+ * value is looked up and converted once when the configuration is loaded, so
+ * reading a setting is as cheap as reading a field.
+ * <p/>
+ * Classes are created through their no-argument constructor, and every field that
+ * isn't static or transient is set from the key with the same name, or the path of
+ * its {@link JsonPath}. Values that are missing leave the field at its initial
+ * value. Fields of other classes are bound to the nested object at their path.
+ * <p/>
+ * Interfaces are implemented with a proxy, where every method without parameters
+ * returns the value at its key. They are a little slower than classes, since every
+ * call goes through the proxy, and their values must be in the configuration or
+ * its defaults.
+ * <p/>
+ * If any value has the wrong type, the previous instance is kept and the errors
+ * are logged when the configuration is loaded.
+ *
+ * @author SirFaizdat
+ */
+public class JsonBinding<T> {
+
+    private final JsonSection section;
+    private final Class<T> type;
+    private volatile T instance;
+
+    JsonBinding(JsonSection section, Class<T> type) {
+        this.section = section;
+        this.type = type;
+    }
+
+    /**
+     * Gets the bound instance. Keep in mind that this is a new instance after every
+     * reload, so don't keep the instance around for longer than you need it.
+     *
+     * @return The instance, or null if the configuration has never been bound successfully
+     */
+    public T get() {
+        return instance;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Binds the values of the configuration again, and swaps in the new instance
+     * if every value was valid.
+     *
+     * @return The errors, empty if the new instance was swapped in
+     */
+    public List<String> rebind() {
+        List<String> errors = new ArrayList<>();
+        T bound = bind(section, type, "", errors);
+        if (errors.isEmpty()) {
+            instance = bound;
+        }
+        return errors;
+    }
+
+    private static <T> T bind(JsonSection section, Class<T> type, String path, List<String> errors) {
+        if (type.isInterface()) {
+            return bindInterface(section, type, path, errors);
+        }
+        T instance;
+        try {
+            java.lang.reflect.Constructor<T> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            instance = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            errors.add(type.getName() + " needs a constructor without parameters");
+            return null;
+        }
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Field field : clazz.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                String key = getKey(field.getAnnotation(JsonPath.class), field.getName());
+                Object value = resolve(section, key, field.getType(), field.getGenericType(), path, errors);
+                if (value == null) {
+                    continue; // Missing, keep the initial value
+                }
+                try {
+                    field.setAccessible(true);
+                    field.set(instance, value);
+                } catch (IllegalAccessException e) {
+                    errors.add(path + key + ": " + e.getMessage());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static <T> T bindInterface(JsonSection section, Class<T> type, String path, List<String> errors) {
+        final Map<String, Object> values = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getParameterTypes().length != 0 || method.getReturnType() == void.class) {
+                continue;
+            }
+            String key = getKey(method.getAnnotation(JsonPath.class), method.getName());
+            Object value = resolve(section, key, method.getReturnType(), method.getGenericReturnType(), path, errors);
+            if (value == null) {
+                errors.add(path + key + " is missing");
+            }
+            values.put(method.getName(), value);
+        }
+        final String name = type.getSimpleName() + values;
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return name;
+                    }
+                }
+                return values.get(method.getName());
+            }
+        }));
+    }
+
+    private static String getKey(JsonPath annotation, String name) {
+        return annotation != null ? annotation.value() : name;
+    }
+
+    // Gets the value at a key converted to the type, or null if it's missing or invalid
+    private static Object resolve(JsonSection section, String key, Class<?> type, Type generic, String path,
+                                  List<String> errors) {
+        Object value = section.get(key);
+        if (value == null) {
+            value = section.getDefault(key);
+        }
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Map && !Map.class.isAssignableFrom(type) && !isSimple(type)) {
+            JsonSection nested = section.getSection(key);
+            return nested == null ? null : bind(nested, type, path + key + ".", errors);
+        }
+        Object converted = convert(value, type, generic);
+        if (converted == null) {
+            errors.add(path + key + " should be " + describe(type) + " but is " + value);
+        }
+        return converted;
+    }
+
+    private static boolean isSimple(Class<?> type) {
+        return type.isPrimitive() || type.isEnum() || type == String.class || Number.class.isAssignableFrom(type)
+                || type == Boolean.class || type == Character.class || List.class.isAssignableFrom(type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object value, Class<?> type, Type generic) {
+        if (type == int.class || type == Integer.class) {
+            return value instanceof Number ? ((Number) value).intValue() : null;
+        } else if (type == long.class || type == Long.class) {
+            return value instanceof Number ? ((Number) value).longValue() : null;
+        } else if (type == double.class || type == Double.class) {
+            return value instanceof Number ? ((Number) value).doubleValue() : null;
+        } else if (type == float.class || type == Float.class) {
+            return value instanceof Number ? ((Number) value).floatValue() : null;
+        } else if (type == short.class || type == Short.class) {
+            return value instanceof Number ? ((Number) value).shortValue() : null;
+        } else if (type == byte.class || type == Byte.class) {
+            return value instanceof Number ? ((Number) value).byteValue() : null;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return value instanceof Boolean ? value : null;
+        } else if (type == char.class || type == Character.class) {
+            return value instanceof String && ((String) value).length() == 1 ? ((String) value).charAt(0) : null;
+        } else if (type == String.class) {
+            return value instanceof String || value instanceof Number || value instanceof Boolean
+                    ? String.valueOf(value) : null;
+        } else if (type.isEnum()) {
+            if (!(value instanceof String)) {
+                return null;
+            }
+            try {
+                return Enum.valueOf((Class<? extends Enum>) type, ((String) value).toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        } else if (List.class.isAssignableFrom(type)) {
+            if (!(value instanceof List)) {
+                return null;
+            }
+            Class<?> element = getTypeArgument(generic, 0);
+            List<Object> list = new ArrayList<>(((List<?>) value).size());
+            for (Object object : (List<?>) value) {
+                Object converted = element == null || object == null ? object : convert(object, element, element);
+                if (converted == null && object != null) {
+                    return null;
+                }
+                list.add(converted);
+            }
+            return Collections.unmodifiableList(list);
+        } else if (Map.class.isAssignableFrom(type)) {
+            return value instanceof Map ? Collections.unmodifiableMap(new LinkedHashMap<>((Map<?, ?>) value)) : null;
+        }
+        return type.isInstance(value) ? value : null;
+    }
+
+    private static Class<?> getTypeArgument(Type generic, int index) {
+        if (generic instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) generic).getActualTypeArguments()[index];
+            if (argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+        }
+        return null;
+    }
+
+    private static String describe(Class<?> type) {
+        if (type.isPrimitive() || Number.class.isAssignableFrom(type)) {
+            return type == boolean.class ? "true or false" : "a number";
+        } else if (type == Boolean.class) {
+            return "true or false";
+        } else if (type.isEnum()) {
+            StringBuilder names = new StringBuilder("one of");
+            for (Object constant : type.getEnumConstants()) {
+                names.append(' ').append(constant);
+            }
+            return names.toString();
+        }
+        return "a " + type.getSimpleName();
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The difference between the entries of a {@link JsonConfig} before and after
+ * its file was reloaded. Nested objects are compared key by key, so changing
+ * 'shop.items.diamond.price' reports that path rather than 'shop'.
+ *
+ * @author SirFaizdat
+ */
+public class JsonChange {
+
+    private final JsonConfig config;
+    private final Set<String> added = new LinkedHashSet<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+    private final Set<String> changed = new LinkedHashSet<>();
+    private final Map<String, Object> oldValues = new HashMap<>();
+
+    private JsonChange(JsonConfig config) {
+        this.config = config;
+    }
+
+    static JsonChange diff(JsonConfig config, Map<?, ?> before, Map<?, ?> after) {
+        JsonChange change = new JsonChange(config);
+        change.diff("", before, after);
+        return change;
+    }
+
+    private void diff(String prefix, Map<?, ?> before, Map<?, ?> after) {
+        for (Map.Entry<?, ?> entry : after.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object old = before.get(entry.getKey());
+            if (old instanceof Map && entry.getValue() instanceof Map) {
+                diff(path + ".", (Map<?, ?>) old, (Map<?, ?>) entry.getValue());
+            } else if (!before.containsKey(entry.getKey())) {
+                added.add(path);
+            } else if (!Objects.equals(old, entry.getValue())) {
+                changed.add(path);
+                oldValues.put(path, old);
+            }
+        }
+        for (Map.Entry<?, ?> entry : before.entrySet()) {
+            if (!after.containsKey(entry.getKey())) {
+                String path = prefix + entry.getKey();
+                removed.add(path);
+                oldValues.put(path, entry.getValue());
+            }
+        }
+    }
+
+    public JsonConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the paths that are new in the file
+     */
+    public Set<String> getAdded() {
+        return Collections.unmodifiableSet(added);
+    }
+
+    /**
+     * Gets the paths that are no longer in the file. Keep in mind that removed
+     * defaults are added back right after the reload.
+     */
+    public Set<String> getRemoved() {
+        return Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Gets the paths that have a different value
+     */
+    public Set<String> getChanged() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Whether a path or anything inside of it was added, removed or changed
+     *
+     * @param path The path, ie. 'shop' or 'shop.items.diamond.price'
+     */
+    public boolean affects(String path) {
+        return affects(added, path) || affects(removed, path) || affects(changed, path);
+    }
+
+    private static boolean affects(Set<String> paths, String path) {
+        for (String changedPath : paths) {
+            if (changedPath.equals(path) || changedPath.startsWith(path + ".") || path.startsWith(changedPath + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the value a changed or removed path had before the reload
+     *
+     * @param path The path
+     * @return The old value, or null if the path was added or not changed
+     */
+    public Object getOldValue(String path) {
+        return oldValues.get(path);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "JsonChange{added=" + added + ", removed=" + removed + ", changed=" + changed + "}";
+    }
+
+}
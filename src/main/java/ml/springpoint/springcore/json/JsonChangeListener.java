@@ -0,0 +1,35 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+/**
+ * Listens for changes that were made to the file of a {@link JsonConfig} while
+ * the server was running, see {@link JsonWatcher}.
+ *
+ * @author SirFaizdat
+ */
+public interface JsonChangeListener {
+
+    /**
+     * Called on the main thread after the new entries were swapped in.
+     *
+     * @param change The paths that were added, removed or changed
+     */
+    void onChange(JsonChange change);
+
+}
@@ -17,18 +17,28 @@
 
 package ml.springpoint.springcore.json;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import ml.springpoint.springcore.SpringPlugin;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import static org.bukkit.util.NumberConversions.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A configuration file in JSON. I find it better than using YAML.
@@ -38,11 +48,13 @@ import static org.bukkit.util.NumberConversions.*;
  * if new defaults are added, they will automatically be added to the configuration
  * if they are not already present. This removes the annoying requirement of
  * deleting the configuration(s) each time the plugin updates.
+ * <p/>
+ * Keys can be nested paths like 'shop.items.diamond', see {@link JsonSection}.
  *
  * @author SirFaizdat
  */
 @SuppressWarnings("unused")
-public class JsonConfig {
+public class JsonConfig extends JsonSection {
 
     // Eventually, this class will probably just extend FileConfiguration
 
@@ -50,8 +62,25 @@ public class JsonConfig {
 
     private SpringPlugin plugin;
     private File file;
-    private Map<String, Object> entries = new HashMap<>();
+    private volatile Map<String, Object> entries = new HashMap<>();
     private Map<String, Object> defaults = new HashMap<>();
+    private long writeBehind = 0;
+    private final AtomicReference<Map<String, Object>> pendingSnapshot = new AtomicReference<>();
+    private ScheduledFuture<?> scheduledSave;
+    private final List<JsonBinding<?>> bindings = new CopyOnWriteArrayList<>();
+    private final AtomicInteger version = new AtomicInteger();
+    private final ConcurrentMap<String, ConcurrentMap<String, Memo>> memos = new ConcurrentHashMap<>();
+    private final List<JsonChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile HashCode lastWritten;
+    private volatile boolean binary;
+    private final JsonJournal journal;
+    private volatile long journalThreshold = 0;
+    private volatile long journalSize = 0;
+    private volatile boolean snapshotRequired = false;
+    private final List<String> journalRecords = new ArrayList<>();
+
+    private static final Set<JsonConfig> pendingConfigs = Collections.newSetFromMap(
+            new ConcurrentHashMap<JsonConfig, Boolean>());
 
     // > Constructor
 
@@ -66,6 +95,7 @@ public class JsonConfig {
     public JsonConfig(SpringPlugin plugin, File file) {
         this.plugin = plugin;
         this.file = file;
+        this.journal = new JsonJournal(plugin, file);
         if (!file.exists()) try {
             //noinspection ResultOfMethodCallIgnored
             file.createNewFile();
@@ -77,421 +107,436 @@ public class JsonConfig {
 
     // > Methods
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Loads the configuration from its file and adds any missing defaults. Whole
+     * numbers are loaded as integers or longs, see {@link JsonLoader}.
+     *
+     * @return true if the configuration was loaded, and every binding was valid
+     */
     public boolean load() {
         try {
-            this.entries = GsonFactory.getCompactGson().fromJson(new FileReader(file), HashMap.class);
-            // Try again if entries is null
-            if (entries == null) {
-                this.entries = new HashMap<>();
-                save();
-                load();
+            if (JsonLoader.isBinary(file)) binary = true;
+            Map<String, Object> loaded = JsonLoader.load(file);
+            synchronized (journalRecords) {
+                journalRecords.clear();
+            }
+            journalSize = journal.replay(loaded);
+            this.entries = loaded;
+            changed();
+            if (journalThreshold <= 0 && journalSize > 0) {
+                // Left over from journal mode, fold it into the file so it is not replayed again
+                if (write(entries)) journal.clear();
+                journalSize = 0;
             }
             checkDefaults();
-            return true;
         } catch (Exception e) { // Catch any exception
             plugin.log("&cError: &7Failed to load the configuration &c%s&7. Stack trace:", file.getName());
             e.printStackTrace();
             return false;
         }
+        return rebindAll();
     }
 
-    public boolean save() {
-        try {
-            FileWriter writer = new FileWriter(file);
-            writer.write(GsonFactory.getPrettyGson().toJson(entries));
-            writer.close();
-            return true;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * Swaps in entries that were loaded from the file on another thread, and tells
+     * the listeners what changed. This is called on the main thread by {@link JsonWatcher}.
+     *
+     * @param loaded The entries that were loaded
+     */
+    void reload(Map<String, Object> loaded) {
+        JsonChange change = JsonChange.diff(this, entries, loaded);
+        if (change.isEmpty()) {
+            return;
         }
-    }
-
-    public void checkDefaults() {
-        boolean addedDefaults = false;
-        for (String defaultKey : defaults.keySet())
-            if (!this.entries.containsKey(defaultKey)) {
-                this.entries.put(defaultKey, defaults.get(defaultKey));
-                addedDefaults = true;
+        // A save that was queued before the edit must not overwrite it
+        synchronized (this) {
+            if (scheduledSave != null) {
+                scheduledSave.cancel(false);
+                scheduledSave = null;
+                pendingConfigs.remove(this);
             }
-
-        if (addedDefaults) save();
-    }
-
-    // > Getters
-    // This code is based off the code in the Bukkit MemorySection class.
-
-    public Object get(String key) {
-        return entries.get(key);
-    }
-
-    public Object get(String key, Object def) {
-        return entries.get(key) == null ? def : entries.get(key);
-    }
-
-    public Object getDefault(String key) {
-        return defaults.get(key);
-    }
-
-    public String getString(String key) {
-        Object def = getDefault(key);
-        return getString(key, def != null ? def.toString() : null);
-    }
-
-    public String getString(String key, String def) {
-        Object val = get(key, def);
-        return (val != null) ? val.toString() : def;
-    }
-
-    public boolean isString(String key) {
-        Object val = get(key);
-        return val instanceof String;
-    }
-
-    public int getInt(String key) {
-        Object def = getDefault(key);
-        return getInt(key, (def instanceof Number) ? toInt(def) : 0);
-    }
-
-    public int getInt(String key, int def) {
-        Object val = get(key, def);
-        return (val instanceof Number) ? toInt(val) : def;
-    }
-
-    public boolean isInt(String key) {
-        Object val = get(key);
-        return val instanceof Integer;
-    }
-
-    public boolean getBoolean(String key) {
-        Object def = getDefault(key);
-        return getBoolean(key, (def instanceof Boolean) ? (Boolean) def : false);
-    }
-
-    public boolean getBoolean(String key, boolean def) {
-        Object val = get(key, def);
-        return (val instanceof Boolean) ? (Boolean) val : def;
-    }
-
-    public boolean isBoolean(String key) {
-        Object val = get(key);
-        return val instanceof Boolean;
-    }
-
-    public double getDouble(String key) {
-        Object def = getDefault(key);
-        return getDouble(key, (def instanceof Number) ? toDouble(def) : 0);
-    }
-
-    public double getDouble(String key, double def) {
-        Object val = get(key, def);
-        return (val instanceof Number) ? toDouble(val) : def;
-    }
-
-    public boolean isDouble(String key) {
-        Object val = get(key);
-        return val instanceof Double;
+            pendingSnapshot.set(null);
+        }
+        this.entries = loaded;
+        changed();
+        checkDefaults();
+        if (journalThreshold > 0) {
+            // The edited file wins over the journal, so write it out as the new snapshot
+            snapshotRequired = true;
+            save();
+        }
+        rebindAll();
+        plugin.log("&7Reloaded the configuration &3%s&7.", file.getName());
+        for (JsonChangeListener listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (Exception e) {
+                plugin.log("&cError: &7A change listener of &c%s&7 failed. Stack trace:", file.getName());
+                e.printStackTrace();
+            }
+        }
     }
 
-    public long getLong(String key) {
-        Object def = getDefault(key);
-        return getLong(key, (def instanceof Number) ? toLong(def) : 0);
+    /**
+     * Adds a listener that is called when the file is edited while the server is
+     * running. This only happens if the {@link JsonWatcher} feature is used.
+     *
+     * @param listener The listener
+     */
+    public void addChangeListener(JsonChangeListener listener) {
+        listeners.add(listener);
     }
 
-    public long getLong(String key, long def) {
-        Object val = get(key, def);
-        return (val instanceof Number) ? toLong(val) : def;
+    public void removeChangeListener(JsonChangeListener listener) {
+        listeners.remove(listener);
     }
 
-    public boolean isLong(String key) {
-        Object val = get(key);
-        return val instanceof Long;
+    private boolean rebindAll() {
+        boolean valid = true;
+        for (JsonBinding<?> binding : bindings) {
+            valid &= rebind(binding);
+        }
+        return valid;
     }
 
-    // Java
-    public List<?> getList(String key) {
-        Object def = getDefault(key);
-        return getList(key, (def instanceof List) ? (List<?>) def : null);
+    /**
+     * Binds this configuration to a class or interface, see {@link JsonBinding}.
+     * The binding gets a new instance each time the configuration is loaded, so
+     * bind after adding the defaults and read the settings through {@link JsonBinding#get()}.
+     *
+     * @param type The class or interface with the settings
+     * @return The binding, holding the bound instance
+     */
+    public <T> JsonBinding<T> bind(Class<T> type) {
+        JsonBinding<T> binding = new JsonBinding<>(this, type);
+        rebind(binding);
+        bindings.add(binding);
+        return binding;
     }
 
-    public List<?> getList(String key, List<?> def) {
-        Object val = get(key, def);
-        return (List<?>) ((val instanceof List) ? val : def);
+    /**
+     * Stops binding a class to this configuration when it is loaded.
+     *
+     * @param binding The binding returned by {@link #bind(Class)}
+     */
+    public void unbind(JsonBinding<?> binding) {
+        bindings.remove(binding);
     }
 
-    public boolean isList(String key) {
-        Object val = get(key);
-        return val instanceof List;
+    private boolean rebind(JsonBinding<?> binding) {
+        List<String> errors = binding.rebind();
+        for (String error : errors) {
+            plugin.log("&cError: &7Invalid setting in &c%s&7: %s", file.getName(), error);
+        }
+        return errors.isEmpty();
     }
 
-    public List<String> getStringList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    /**
+     * Saves the configuration. In write-behind mode (see {@link #setWriteBehind(long)})
+     * this only takes a snapshot of the entries, and the file is written on the IO
+     * thread once the window has passed, together with any other saves in that window.
+     * In journal mode (see {@link #setJournal(long)}) only the changes are appended.
+     *
+     * @return true if the configuration was saved, or queued to be saved
+     */
+    public boolean save() {
+        if (journalThreshold > 0) {
+            return saveJournal();
         }
-
-        List<String> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if ((object instanceof String) || (isPrimitiveWrapper(object))) {
-                result.add(String.valueOf(object));
+        if (writeBehind <= 0) {
+            return write(entries);
+        }
+        pendingSnapshot.set(snapshot(entries));
+        synchronized (this) {
+            if (scheduledSave == null) {
+                pendingConfigs.add(this);
+                scheduledSave = JsonIO.getExecutor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        writePending();
+                    }
+                }, writeBehind, TimeUnit.MILLISECONDS);
             }
         }
-
-        return result;
+        return true;
     }
 
-    public List<Integer> getIntegerList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    // Appends the sets since the last save to the journal, or writes a new snapshot once it got too big
+    private synchronized boolean saveJournal() {
+        StringBuilder builder = new StringBuilder();
+        synchronized (journalRecords) {
+            for (String record : journalRecords) {
+                builder.append(record);
+            }
+            journalRecords.clear();
         }
-
-        List<Integer> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Integer) {
-                result.add((Integer) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Integer.valueOf((String) object));
-                } catch (Exception ignored) {
+        final byte[] records = builder.toString().getBytes(StandardCharsets.UTF_8);
+        if (snapshotRequired || journalSize + records.length >= journalThreshold) {
+            snapshotRequired = false;
+            journalSize = 0;
+            final Map<String, Object> snapshot = snapshot(entries);
+            JsonIO.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    compact(snapshot, records);
                 }
-            } else if (object instanceof Character) {
-                result.add((int) (Character) object);
-            } else if (object instanceof Number) {
-                result.add(((Number) object).intValue());
-            }
+            });
+        } else if (records.length > 0) {
+            journalSize += records.length;
+            JsonIO.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    appendJournal(records);
+                }
+            });
         }
-
-        return result;
+        return true;
     }
 
-    public List<Boolean> getBooleanList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    // Runs on the IO thread
+    private void compact(Map<String, Object> snapshot, byte[] records) {
+        if (!write(snapshot)) {
+            appendJournal(records); // Keep the changes in the journal, the next save tries again
+            return;
         }
-
-        List<Boolean> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Boolean) {
-                result.add((Boolean) object);
-            } else if (object instanceof String) {
-                if (Boolean.TRUE.toString().equals(object)) {
-                    result.add(true);
-                } else if (Boolean.FALSE.toString().equals(object)) {
-                    result.add(false);
-                }
-            }
+        try {
+            journal.clear();
+        } catch (IOException e) {
+            // The journal was started on the old snapshot, so it is skipped when loading
+            plugin.log("&cError: &7Failed to clear the journal of &c%s&7. Stack trace:", file.getName());
+            e.printStackTrace();
         }
-
-        return result;
     }
 
-    public List<Double> getDoubleList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    // Runs on the IO thread
+    private void appendJournal(byte[] records) {
+        if (records.length == 0) {
+            return;
         }
-
-        List<Double> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Double) {
-                result.add((Double) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Double.valueOf((String) object));
-                } catch (Exception ignored) {
-                }
-            } else if (object instanceof Character) {
-                result.add((double) (Character) object);
-            } else if (object instanceof Number) {
-                result.add(((Number) object).doubleValue());
-            }
+        try {
+            journal.append(records);
+        } catch (IOException e) {
+            plugin.log("&cError: &7Failed to append to the journal of &c%s&7. Stack trace:", file.getName());
+            e.printStackTrace();
         }
-
-        return result;
     }
 
-    public List<Float> getFloatList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    /**
+     * Turns on journal mode, for configurations that change often, like balances.
+     * Each {@link #set(String, Object)} is then recorded, and {@link #save()} appends
+     * the records since the last save to a journal file next to the configuration
+     * on the IO thread, so saving costs as much as the changes rather than the whole
+     * file. Once the journal is bigger than the threshold, the configuration file is
+     * written again and the journal is cleared.
+     * <p/>
+     * When the configuration is loaded, the journal is replayed on top of the file,
+     * unless the file was written after the journal was started, see {@link JsonJournal}.
+     * After a crash, everything up to the last save is recovered. Editing the file by
+     * hand drops the records that were not written to it yet.
+     * Call this before {@link #load()}. Changes made to the maps and lists inside
+     * of the configuration without calling set are only written with the next snapshot.
+     *
+     * @param threshold The size of the journal in bytes before the file is rewritten,
+     *                  ie. 1048576, or 0 to turn journal mode off
+     */
+    public synchronized void setJournal(long threshold) {
+        if (threshold <= 0 && journalThreshold > 0) {
+            snapshotRequired = true; // Fold the journal into the file with the next save
+            this.journalThreshold = 0;
+            saveJournal();
+            return;
         }
+        this.journalThreshold = threshold;
+    }
 
-        List<Float> result = new ArrayList<>();
+    public boolean isJournal() {
+        return journalThreshold > 0;
+    }
 
-        for (Object object : list) {
-            if (object instanceof Float) {
-                result.add((Float) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Float.valueOf((String) object));
-                } catch (Exception ignored) {
-                }
-            } else if (object instanceof Character) {
-                result.add((float) (Character) object);
-            } else if (object instanceof Number) {
-                result.add(((Number) object).floatValue());
+    // Called by JsonSection#set(String, Object)
+    void record(String[] prefix, String path, Object value) {
+        if (journalThreshold > 0) {
+            String record = JsonJournal.record(prefix, path, value);
+            synchronized (journalRecords) {
+                journalRecords.add(record);
             }
         }
-
-        return result;
     }
 
-    public List<Long> getLongList(String key) {
-        List<?> list = getList(key);
+    /**
+     * Writes a queued save right away rather than at the end of its window.
+     *
+     * @param timeout The most milliseconds to wait for the write
+     * @return true if nothing is left to write
+     */
+    public boolean flush(long timeout) {
+        writeNow();
+        return JsonIO.await(timeout);
+    }
 
-        if (list == null) {
-            return new ArrayList<>(0);
+    /**
+     * Writes the queued saves of every configuration, ie. when the server shuts down.
+     *
+     * @param timeout The most milliseconds to wait for the writes
+     * @return true if nothing is left to write
+     */
+    public static boolean flushAll(long timeout) {
+        for (JsonConfig config : pendingConfigs) {
+            config.writeNow();
         }
+        return JsonIO.await(timeout);
+    }
 
-        List<Long> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Long) {
-                result.add((Long) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Long.valueOf((String) object));
-                } catch (Exception ignored) {
+    // Moves a queued save to the front of the IO thread
+    private synchronized void writeNow() {
+        if (scheduledSave != null) {
+            scheduledSave.cancel(false);
+            JsonIO.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    writePending();
                 }
-            } else if (object instanceof Character) {
-                result.add((long) (Character) object);
-            } else if (object instanceof Number) {
-                result.add(((Number) object).longValue());
-            }
+            });
         }
-
-        return result;
     }
 
-    public List<Byte> getByteList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    private void writePending() {
+        synchronized (this) {
+            scheduledSave = null;
+            pendingConfigs.remove(this);
         }
-
-        List<Byte> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Byte) {
-                result.add((Byte) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Byte.valueOf((String) object));
-                } catch (Exception ignored) {
-                }
-            } else if (object instanceof Character) {
-                result.add((byte) ((Character) object).charValue());
-            } else if (object instanceof Number) {
-                result.add(((Number) object).byteValue());
-            }
+        Map<String, Object> snapshot = pendingSnapshot.getAndSet(null);
+        if (snapshot != null) {
+            write(snapshot);
         }
-
-        return result;
     }
 
-    public List<Character> getCharacterList(String key) {
-        List<?> list = getList(key);
-
-        if (list == null) {
-            return new ArrayList<>(0);
+    private boolean write(Map<String, Object> entries) {
+        try {
+            ByteBuffer contents = binary ? JsonBinary.encode(entries)
+                    : ByteBuffer.wrap(GsonFactory.getPrettyGson().toJson(entries).getBytes(StandardCharsets.UTF_8));
+            HashCode hash = hash(contents);
+            JsonIO.writeAtomically(file, contents);
+            lastWritten = hash;
+            return true;
+        } catch (IOException e) {
+            plugin.log("&cError: &7Failed to save the configuration &c%s&7. Stack trace:", file.getName());
+            e.printStackTrace();
+            return false;
         }
+    }
 
-        List<Character> result = new ArrayList<>();
-
-        for (Object object : list) {
-            if (object instanceof Character) {
-                result.add((Character) object);
-            } else if (object instanceof String) {
-                String str = (String) object;
-
-                if (str.length() == 1) {
-                    result.add(str.charAt(0));
-                }
-            } else if (object instanceof Number) {
-                result.add((char) ((Number) object).intValue());
+    // Copies the maps and lists, the values in them are expected to not change after they were set
+    @SuppressWarnings("unchecked")
+    private static <T> T snapshot(T value) {
+        if (value instanceof Map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                copy.put(entry.getKey(), snapshot(entry.getValue()));
             }
+            return (T) copy;
         }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(snapshot(element));
+            }
+            return (T) copy;
+        }
+        return value;
+    }
 
-        return result;
+    /**
+     * Turns on write-behind mode: {@link #save()} no longer writes on the calling
+     * thread, and saves made within the window are written to the file once.
+     * Keep in mind that objects set in the configuration should not be changed
+     * afterwards, only the maps and lists are copied when saving.
+     *
+     * @param window The time in milliseconds to wait for more saves, or 0 to save right away
+     */
+    public void setWriteBehind(long window) {
+        this.writeBehind = window;
     }
 
-    public List<Short> getShortList(String key) {
-        List<?> list = getList(key);
+    /**
+     * Sets whether this configuration is saved in the compact binary format of
+     * {@link JsonBinary} instead of JSON. It is much faster to load and save for
+     * big data files, but can't be edited by hand. Files that are already binary
+     * are loaded as such and stay binary, unless this is set back to false.
+     *
+     * @param binary true to save in binary
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+    }
 
-        if (list == null) {
-            return new ArrayList<>(0);
-        }
+    public boolean isBinary() {
+        return binary;
+    }
 
-        List<Short> result = new ArrayList<>();
+    public void checkDefaults() {
+        if (addDefaults(entries, defaults)) {
+            changed();
+            snapshotRequired = true; // Defaults are not set through the journal
+            save();
+        }
+    }
 
-        for (Object object : list) {
-            if (object instanceof Short) {
-                result.add((Short) object);
-            } else if (object instanceof String) {
-                try {
-                    result.add(Short.valueOf((String) object));
-                } catch (Exception ignored) {
-                }
-            } else if (object instanceof Character) {
-                result.add((short) ((Character) object).charValue());
-            } else if (object instanceof Number) {
-                result.add(((Number) object).shortValue());
+    // Adds the missing defaults, including the ones inside of nested objects
+    @SuppressWarnings("unchecked")
+    private static boolean addDefaults(Map<String, Object> entries, Map<String, Object> defaults) {
+        boolean addedDefaults = false;
+        for (Map.Entry<String, Object> entry : defaults.entrySet()) {
+            Object current = entries.get(entry.getKey());
+            if (!entries.containsKey(entry.getKey())) {
+                entries.put(entry.getKey(), snapshot(entry.getValue()));
+                addedDefaults = true;
+            } else if (current instanceof Map && entry.getValue() instanceof Map) {
+                addedDefaults |= addDefaults((Map<String, Object>) current, (Map<String, Object>) entry.getValue());
             }
         }
+        return addedDefaults;
+    }
 
-        return result;
+    // Drops the cached lists of every section, see JsonSection#getInts(String)
+    void changed() {
+        version.incrementAndGet();
+        memos.clear();
     }
 
-    public List<Map<?, ?>> getMapList(String key) {
-        List<?> list = getList(key);
-        List<Map<?, ?>> result = new ArrayList<>();
+    int getVersion() {
+        return version.get();
+    }
 
-        if (list == null) {
-            return result;
-        }
+    // The cached lists by the path of their section
+    ConcurrentMap<String, ConcurrentMap<String, Memo>> getMemos() {
+        return memos;
+    }
 
-        for (Object object : list) {
-            if (object instanceof Map) {
-                result.add((Map<?, ?>) object);
-            }
-        }
+    // The hash of the contents of the last save, so that the watcher can ignore it
+    HashCode getLastWritten() {
+        return lastWritten;
+    }
 
-        return result;
+    static HashCode hash(ByteBuffer contents) {
+        return Hashing.murmur3_128().hashBytes(contents.array(), contents.arrayOffset() + contents.position(),
+                contents.remaining());
     }
 
-    protected boolean isPrimitiveWrapper(Object input) {
-        return input instanceof Integer || input instanceof Boolean ||
-                input instanceof Character || input instanceof Byte ||
-                input instanceof Short || input instanceof Double ||
-                input instanceof Long || input instanceof Float;
+    public File getFile() {
+        return file;
     }
 
-    // > Setters
+    Map<String, Object> getEntries() {
+        return entries;
+    }
 
-    /**
-     * Sets a key to a value. If the entry is already in the configuration, it will be
-     * overwritten. Remember to save after you are done setting.
-     *
-     * @param key   The key
-     * @param value The value
-     */
-    public void set(String key, Object value) {
-        entries.put(key, value);
+    Map<String, Object> getDefaults() {
+        return defaults;
     }
 
+    // > Setters
+
     /**
      * Adds a default value. Remember to add your defaults before you call load().
      * If you need to add any defaults after calling load(), simply reload() after
@@ -501,7 +546,8 @@ public class JsonConfig {
      * @param value The value
      */
     public void addDefault(String key, Object value) {
-        defaults.put(key, value);
+        put(defaults, new String[0], key, value);
+        changed();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The single background thread that JSON files are written on, along with the
+ * helpers to write them safely. Files are written to a temporary file first,
+ * forced to the disk and then moved over the old file, so a crash in the middle
+ * of a write never leaves a truncated file behind.
+ *
+ * @author SirFaizdat
+ */
+public class JsonIO {
+
+    private static ScheduledThreadPoolExecutor executor;
+
+    private JsonIO() {
+    }
+
+    /**
+     * Gets the executor of the IO thread. Tasks run one at a time, in the order
+     * they were submitted. The thread is started again if it was shut down.
+     */
+    public static synchronized ScheduledExecutorService getExecutor() {
+        if (executor == null) {
+            executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "SpringCore JSON IO");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            // Delayed tasks are flushed before the shutdown, anything left is not worth waiting for
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the IO thread once the tasks that were already submitted have run, so
+     * that it does not keep the classes of SpringCore loaded after a reload. Flush
+     * the configurations first, see {@link JsonConfig#flushAll(long)}.
+     *
+     * @param timeout The most milliseconds to wait for the tasks
+     * @return true if the thread stopped in time
+     */
+    public static boolean shutdown(long timeout) {
+        ScheduledExecutorService current;
+        synchronized (JsonIO.class) {
+            current = executor;
+            executor = null;
+        }
+        if (current == null) {
+            return true;
+        }
+        current.shutdown();
+        try {
+            return current.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Writes a file in UTF-8 so that it either has the old or the new contents,
+     * even if the server crashes halfway through.
+     *
+     * @param file     The file to write
+     * @param contents The new contents
+     * @throws IOException If the file could not be written
+     */
+    public static void writeAtomically(File file, String contents) throws IOException {
+        writeAtomically(file, ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Writes a file so that it either has the old or the new contents, even if the
+     * server crashes halfway through.
+     *
+     * @param file     The file to write
+     * @param contents The new contents
+     * @throws IOException If the file could not be written
+     */
+    public static void writeAtomically(File file, ByteBuffer contents) throws IOException {
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until everything that was submitted to the IO thread so far has run.
+     *
+     * @param timeout The most milliseconds to wait
+     * @return true if everything ran in time
+     */
+    public static boolean await(long timeout) {
+        Future<?> marker = getExecutor().submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        try {
+            marker.get(timeout, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import com.google.common.hash.Hashing;
+import ml.springpoint.springcore.SpringPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The journal of a {@link JsonConfig} in journal mode, a file next to the
+ * configuration with one line of compact JSON per set: <code>[prefix, path, value]</code>.
+ * <p/>
+ * The first line of a journal holds the hash of the configuration file it was
+ * started on. The journal is only replayed on top of that exact file, so if the
+ * server crashes after a new snapshot was written but before the old journal was
+ * deleted, the old records are skipped rather than undoing changes that were made
+ * outside of set, like an edit of the file.
+ * <p/>
+ * Appends are forced to the disk per batch. If the server crashes in the middle of
+ * an append, the incomplete last record is cut off when the journal is replayed,
+ * so only the changes of that batch are lost.
+ *
+ * @author SirFaizdat
+ */
+class JsonJournal {
+
+    private static final String HEADER_KEY = "snapshot";
+
+    private final SpringPlugin plugin;
+    private final File config;
+    private final File file;
+
+    JsonJournal(SpringPlugin plugin, File config) {
+        this.plugin = plugin;
+        this.config = config;
+        this.file = new File(config.getParentFile(), config.getName() + ".journal");
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    boolean exists() {
+        return file.exists() && file.length() > 0;
+    }
+
+    /**
+     * Encodes a set, see {@link JsonSection#set(String, Object)}.
+     *
+     * @param prefix The path of the section that was set in
+     * @param path   The path that was set, relative to the section
+     * @param value  The new value, serialized right away
+     * @return The line, including the line break
+     */
+    static String record(String[] prefix, String path, Object value) {
+        StringBuilder record = new StringBuilder("[[");
+        for (int i = 0; i < prefix.length; i++) {
+            record.append(i == 0 ? "" : ",").append(GsonFactory.getCompactGson().toJson(prefix[i]));
+        }
+        record.append("],").append(GsonFactory.getCompactGson().toJson(path)).append(',');
+        record.append(value == null ? "null" : GsonFactory.getCompactGson().toJson(value));
+        return record.append("]\n").toString();
+    }
+
+    /**
+     * Appends records to the journal and forces them to the disk. A new journal
+     * starts with the hash of the configuration file. Runs on the IO thread.
+     *
+     * @param records The lines to add, in UTF-8
+     */
+    void append(byte[] records) throws IOException {
+        ByteBuffer header = null;
+        if (!exists()) {
+            header = ByteBuffer.wrap(("{\"" + HEADER_KEY + "\":\"" + hashConfig() + "\"}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(records);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (header != null && header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Empties the journal after its records were written to the snapshot. Runs on the IO thread.
+     */
+    void clear() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    /**
+     * Applies the records of the journal to the entries of the snapshot.
+     *
+     * @param entries The entries that were loaded from the configuration file
+     * @return The size of the journal in bytes, after cutting off an incomplete last record
+     * @throws IOException If the journal could not be read
+     */
+    @SuppressWarnings("unchecked")
+    long replay(Map<String, Object> entries) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        byte[] data = Files.readAllBytes(file.toPath());
+        int start = 0;
+        int end = indexOf(data, 0);
+        if (end >= 0) {
+            Object header = parseLine(data, 0, end);
+            if (header instanceof Map) {
+                if (!hashConfig().equals(((Map<?, ?>) header).get(HEADER_KEY))) {
+                    // Started on an older snapshot, its records are already in the file
+                    clear();
+                    return 0;
+                }
+                start = end + 1;
+            }
+        }
+        for (end = indexOf(data, start); end >= 0; end = indexOf(data, start)) {
+            try {
+                List<Object> record = (List<Object>) parseLine(data, start, end);
+                List<Object> prefix = (List<Object>) record.get(0);
+                JsonSection.put(entries, prefix.toArray(new String[prefix.size()]), (String) record.get(1),
+                        record.get(2));
+            } catch (RuntimeException e) {
+                if (indexOf(data, end + 1) < 0) {
+                    break; // The last record, torn by a crash
+                }
+                plugin.log("&cError: &7Skipped an invalid record at byte &c%d&7 of &c%s&7: %s", start,
+                        file.getName(), e.getMessage());
+            }
+            start = end + 1;
+        }
+        if (start < data.length) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(start);
+                channel.force(false);
+            }
+        }
+        return start;
+    }
+
+    private static Object parseLine(byte[] data, int start, int end) {
+        return JsonLoader.parse(new String(data, start, end - start, StandardCharsets.UTF_8));
+    }
+
+    private String hashConfig() throws IOException {
+        byte[] snapshot = config.exists() ? Files.readAllBytes(config.toPath()) : new byte[0];
+        return Hashing.murmur3_128().hashBytes(snapshot).toString();
+    }
+
+    private static int indexOf(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads JSON files into plain maps and lists with a streaming {@link JsonReader},
+ * so no intermediate tree is built. Unlike Gson's default object adapter, whole
+ * numbers are kept as {@link Integer} or {@link Long} instead of all becoming
+ * {@link Double}. Keys are interned, since big files tend to repeat the same keys
+ * over and over.
+ * <p/>
+ * Files in the binary format of {@link JsonBinary} are recognized by their magic
+ * number and decoded with that instead.
+ *
+ * @author SirFaizdat
+ */
+public class JsonLoader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Interner<String> KEYS = Interners.newWeakInterner();
+
+    private JsonLoader() {
+    }
+
+    /**
+     * Reads a JSON object from a file, in either text or binary.
+     *
+     * @param file The file to read
+     * @return The entries of the object, or an empty map if the file is empty, blank or contains null
+     * @throws IOException        If the file could not be read
+     * @throws JsonParseException If the file does not contain a JSON object
+     */
+    public static Map<String, Object> load(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return new LinkedHashMap<>();
+            }
+            if (isBinary(channel)) {
+                ByteBuffer data = ByteBuffer.allocate((int) channel.size());
+                channel.position(0);
+                while (data.hasRemaining() && channel.read(data) >= 0) {
+                    // Keep reading until the buffer is full
+                }
+                return JsonBinary.decode(data.array());
+            }
+            channel.position(0);
+            JsonReader reader = new JsonReader(new BufferedReader(
+                    Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE));
+            reader.setLenient(true); // Like Gson#fromJson
+            JsonToken token;
+            try {
+                token = reader.peek();
+            } catch (EOFException e) {
+                return new LinkedHashMap<>(); // Only whitespace, which older versions of Gson don't report as the end
+            }
+            switch (token) {
+                case BEGIN_OBJECT:
+                    return readObject(reader);
+                case NULL:
+                case END_DOCUMENT:
+                    return new LinkedHashMap<>();
+                default:
+                    throw new JsonParseException("Expected a JSON object in " + file.getName() + " but was " + token);
+            }
+        }
+    }
+
+    /**
+     * Whether a file is in the binary format of {@link JsonBinary}
+     *
+     * @param file The file
+     * @return true if the file starts with the magic number of the binary format
+     * @throws IOException If the file could not be read
+     */
+    public static boolean isBinary(File file) throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return isBinary(channel);
+        }
+    }
+
+    private static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Keep reading until the header is full
+        }
+        return JsonBinary.isBinary(header.array());
+    }
+
+    /**
+     * Reads a single JSON value, like a record of a {@link JsonJournal}.
+     *
+     * @param json The JSON
+     * @return The value, as maps, lists, strings, numbers and booleans
+     * @throws JsonParseException If the JSON is not valid
+     */
+    static Object parse(String json) {
+        try {
+            JsonReader reader = new JsonReader(new StringReader(json));
+            reader.setLenient(true);
+            Object value = readValue(reader);
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonParseException("Unexpected data after the value");
+            }
+            return value;
+        } catch (IOException | IllegalStateException e) {
+            throw new JsonParseException(e);
+        }
+    }
+
+    static String intern(String key) {
+        return KEYS.intern(key);
+    }
+
+    private static Map<String, Object> readObject(JsonReader reader) throws IOException {
+        Map<String, Object> map = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = KEYS.intern(reader.nextName());
+            map.put(key, readValue(reader));
+        }
+        reader.endObject();
+        return map;
+    }
+
+    private static List<Object> readArray(JsonReader reader) throws IOException {
+        List<Object> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            list.add(readValue(reader));
+        }
+        reader.endArray();
+        return list;
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(reader);
+            case BEGIN_ARRAY:
+                return readArray(reader);
+            case STRING:
+                return reader.nextString();
+            case NUMBER:
+                return parseNumber(reader.nextString());
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                throw new JsonParseException("Unexpected " + reader.peek());
+        }
+    }
+
+    /**
+     * Parses a JSON number as an {@link Integer} or a {@link Long} if it is whole
+     * and fits, otherwise as a {@link Double}.
+     */
+    static Number parseNumber(String number) {
+        boolean whole = true;
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                whole = false;
+                break;
+            }
+        }
+        if (whole) {
+            try {
+                long value = Long.parseLong(number);
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException ignored) {
+                // Too big for a long
+            }
+        }
+        return Double.parseDouble(number);
+    }
+
+}
@@ -0,0 +1,693 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.bukkit.util.NumberConversions.*;
+
+/**
+ * A view of a JSON object inside of a {@link JsonConfig}, like Bukkit's
+ * ConfigurationSection. Keys are paths separated by dots, so 'shop.items.diamond'
+ * is the entry 'diamond' of the object 'items' of the object 'shop'.
+ * <p/>
+ * Paths are split once and cached, so getting the same path again does not
+ * split or allocate anything. Keys that contain dots themselves, from before
+ * nested paths were supported, are still found.
+ *
+ * @author SirFaizdat
+ */
+@SuppressWarnings("unused")
+public class JsonSection {
+
+    private static final int MAX_CACHED_PATHS = 4096;
+    private static final ConcurrentMap<String, String[]> paths = new ConcurrentHashMap<>();
+
+    private final JsonConfig config;
+    private final String[] prefix;
+    private final String path;
+
+    // The configuration itself
+    JsonSection() {
+        this.config = null;
+        this.prefix = new String[0];
+        this.path = "";
+    }
+
+    JsonSection(JsonConfig config, String[] prefix) {
+        this.config = config;
+        this.prefix = prefix;
+        StringBuilder path = new StringBuilder();
+        for (String segment : prefix) {
+            path.append(path.length() == 0 ? "" : ".").append(segment);
+        }
+        this.path = path.toString();
+    }
+
+    private JsonConfig getConfig() {
+        return config != null ? config : (JsonConfig) this;
+    }
+
+    // > Paths
+
+    static String[] split(String path) {
+        String[] segments = paths.get(path);
+        if (segments == null) {
+            List<String> list = new ArrayList<>();
+            int start = 0;
+            for (int i = path.indexOf('.'); i >= 0; i = path.indexOf('.', start)) {
+                list.add(path.substring(start, i));
+                start = i + 1;
+            }
+            list.add(path.substring(start));
+            segments = list.toArray(new String[list.size()]);
+            if (paths.size() < MAX_CACHED_PATHS) {
+                paths.put(path, segments);
+            }
+        }
+        return segments;
+    }
+
+    // Gets the object of this section inside of the root object
+    private Map<?, ?> getMap(Map<String, Object> root) {
+        Object node = root;
+        for (String segment : prefix) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return node instanceof Map ? (Map<?, ?>) node : null;
+    }
+
+    private Object find(Map<String, Object> root, String path) {
+        Object node = getMap(root);
+        if (node == null) {
+            return null;
+        }
+        Object exact = ((Map<?, ?>) node).get(path);
+        if (exact != null || path.indexOf('.') < 0) {
+            return exact;
+        }
+        for (String segment : split(path)) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void put(Map<String, Object> root, String[] prefix, String path, Object value) {
+        Map<String, Object> map = root;
+        String[] segments = split(path);
+        if (prefix.length == 0 && (segments.length == 1 || root.containsKey(path))) {
+            root.put(path, value);
+            return;
+        }
+        for (int i = 0; i < prefix.length + segments.length - 1; i++) {
+            String segment = i < prefix.length ? prefix[i] : segments[i - prefix.length];
+            Object child = map.get(segment);
+            if (!(child instanceof Map)) {
+                child = new LinkedHashMap<String, Object>();
+                map.put(segment, child);
+            }
+            map = (Map<String, Object>) child;
+        }
+        map.put(segments[segments.length - 1], value);
+    }
+
+    /**
+     * Gets the path of this section inside of the configuration
+     *
+     * @return Something like 'shop.items', or an empty string for the configuration itself
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Gets a nested section
+     *
+     * @param path The path of the section, relative to this section
+     * @return The section, or null if there is no object at that path, neither in the
+     * configuration nor in its defaults
+     */
+    public JsonSection getSection(String path) {
+        if (!(get(path) instanceof Map) && !(getDefault(path) instanceof Map)) {
+            return null;
+        }
+        String[] segments = split(path);
+        String[] nested = new String[prefix.length + segments.length];
+        System.arraycopy(prefix, 0, nested, 0, prefix.length);
+        System.arraycopy(segments, 0, nested, prefix.length, segments.length);
+        return new JsonSection(getConfig(), nested);
+    }
+
+    /**
+     * Gets the keys directly inside of this section
+     */
+    @SuppressWarnings("unchecked")
+    public Set<String> getKeys() {
+        Map<?, ?> map = getMap(getConfig().getEntries());
+        return map == null ? Collections.<String>emptySet() : Collections.unmodifiableSet((Set<String>) map.keySet());
+    }
+
+    public boolean contains(String path) {
+        return get(path) != null;
+    }
+
+    // > Getters
+    // This code is based off the code in the Bukkit MemorySection class.
+
+    public Object get(String key) {
+        return find(getConfig().getEntries(), key);
+    }
+
+    public Object get(String key, Object def) {
+        Object val = get(key);
+        return val == null ? def : val;
+    }
+
+    public Object getDefault(String key) {
+        return find(getConfig().getDefaults(), key);
+    }
+
+
+    public String getString(String key) {
+        Object def = getDefault(key);
+        return getString(key, def != null ? def.toString() : null);
+    }
+
+    public String getString(String key, String def) {
+        Object val = get(key, def);
+        return (val != null) ? val.toString() : def;
+    }
+
+    public boolean isString(String key) {
+        Object val = get(key);
+        return val instanceof String;
+    }
+
+    public int getInt(String key) {
+        Object def = getDefault(key);
+        return getInt(key, (def instanceof Number) ? toInt(def) : 0);
+    }
+
+    public int getInt(String key, int def) {
+        Object val = get(key, def);
+        return (val instanceof Number) ? toInt(val) : def;
+    }
+
+    public boolean isInt(String key) {
+        Object val = get(key);
+        return val instanceof Integer;
+    }
+
+    public boolean getBoolean(String key) {
+        Object def = getDefault(key);
+        return getBoolean(key, (def instanceof Boolean) ? (Boolean) def : false);
+    }
+
+    public boolean getBoolean(String key, boolean def) {
+        Object val = get(key, def);
+        return (val instanceof Boolean) ? (Boolean) val : def;
+    }
+
+    public boolean isBoolean(String key) {
+        Object val = get(key);
+        return val instanceof Boolean;
+    }
+
+    public double getDouble(String key) {
+        Object def = getDefault(key);
+        return getDouble(key, (def instanceof Number) ? toDouble(def) : 0);
+    }
+
+    public double getDouble(String key, double def) {
+        Object val = get(key, def);
+        return (val instanceof Number) ? toDouble(val) : def;
+    }
+
+    public boolean isDouble(String key) {
+        Object val = get(key);
+        return val instanceof Double;
+    }
+
+    public long getLong(String key) {
+        Object def = getDefault(key);
+        return getLong(key, (def instanceof Number) ? toLong(def) : 0);
+    }
+
+    public long getLong(String key, long def) {
+        Object val = get(key, def);
+        return (val instanceof Number) ? toLong(val) : def;
+    }
+
+    public boolean isLong(String key) {
+        Object val = get(key);
+        return val instanceof Long;
+    }
+
+    // Java
+    public List<?> getList(String key) {
+        Object def = getDefault(key);
+        return getList(key, (def instanceof List) ? (List<?>) def : null);
+    }
+
+    public List<?> getList(String key, List<?> def) {
+        Object val = get(key, def);
+        return (List<?>) ((val instanceof List) ? val : def);
+    }
+
+    public boolean isList(String key) {
+        Object val = get(key);
+        return val instanceof List;
+    }
+
+    public List<String> getStringList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<String> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if ((object instanceof String) || (isPrimitiveWrapper(object))) {
+                result.add(String.valueOf(object));
+            }
+        }
+
+        return result;
+    }
+
+    public List<Integer> getIntegerList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Integer> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Integer) {
+                result.add((Integer) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Integer.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((int) (Character) object);
+            } else if (object instanceof Number) {
+                result.add(((Number) object).intValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Boolean> getBooleanList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Boolean> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Boolean) {
+                result.add((Boolean) object);
+            } else if (object instanceof String) {
+                if (Boolean.TRUE.toString().equals(object)) {
+                    result.add(true);
+                } else if (Boolean.FALSE.toString().equals(object)) {
+                    result.add(false);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public List<Double> getDoubleList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Double> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Double) {
+                result.add((Double) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Double.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((double) (Character) object);
+            } else if (object instanceof Number) {
+                result.add(((Number) object).doubleValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Float> getFloatList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Float> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Float) {
+                result.add((Float) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Float.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((float) (Character) object);
+            } else if (object instanceof Number) {
+                result.add(((Number) object).floatValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Long> getLongList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Long> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Long) {
+                result.add((Long) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Long.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((long) (Character) object);
+            } else if (object instanceof Number) {
+                result.add(((Number) object).longValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Byte> getByteList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Byte> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Byte) {
+                result.add((Byte) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Byte.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((byte) ((Character) object).charValue());
+            } else if (object instanceof Number) {
+                result.add(((Number) object).byteValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Character> getCharacterList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Character> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Character) {
+                result.add((Character) object);
+            } else if (object instanceof String) {
+                String str = (String) object;
+
+                if (str.length() == 1) {
+                    result.add(str.charAt(0));
+                }
+            } else if (object instanceof Number) {
+                result.add((char) ((Number) object).intValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Short> getShortList(String key) {
+        List<?> list = getList(key);
+
+        if (list == null) {
+            return new ArrayList<>(0);
+        }
+
+        List<Short> result = new ArrayList<>();
+
+        for (Object object : list) {
+            if (object instanceof Short) {
+                result.add((Short) object);
+            } else if (object instanceof String) {
+                try {
+                    result.add(Short.valueOf((String) object));
+                } catch (Exception ignored) {
+                }
+            } else if (object instanceof Character) {
+                result.add((short) ((Character) object).charValue());
+            } else if (object instanceof Number) {
+                result.add(((Number) object).shortValue());
+            }
+        }
+
+        return result;
+    }
+
+    public List<Map<?, ?>> getMapList(String key) {
+        List<?> list = getList(key);
+        List<Map<?, ?>> result = new ArrayList<>();
+
+        if (list == null) {
+            return result;
+        }
+
+        for (Object object : list) {
+            if (object instanceof Map) {
+                result.add((Map<?, ?>) object);
+            }
+        }
+
+        return result;
+    }
+
+    // > Primitive lists
+    // These are converted once and cached until the configuration changes. The
+    // lists are read-only views of the cache, so getting them again allocates nothing.
+
+    private static final int INT = 0, LONG = 1, DOUBLE = 2, FLOAT = 3, BOOLEAN = 4, STRING = 5;
+
+    public IntList getInts(String key) {
+        int version = getConfig().getVersion();
+        IntList values = (IntList) getMemo(key, INT, version);
+        if (values == null) {
+            List<Integer> list = getIntegerList(key);
+            int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            values = new IntList(array);
+            putMemo(key, INT, version, values);
+        }
+        return values;
+    }
+
+    public LongList getLongs(String key) {
+        int version = getConfig().getVersion();
+        LongList values = (LongList) getMemo(key, LONG, version);
+        if (values == null) {
+            List<Long> list = getLongList(key);
+            long[] array = new long[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            values = new LongList(array);
+            putMemo(key, LONG, version, values);
+        }
+        return values;
+    }
+
+    public DoubleList getDoubles(String key) {
+        int version = getConfig().getVersion();
+        DoubleList values = (DoubleList) getMemo(key, DOUBLE, version);
+        if (values == null) {
+            List<Double> list = getDoubleList(key);
+            double[] array = new double[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            values = new DoubleList(array);
+            putMemo(key, DOUBLE, version, values);
+        }
+        return values;
+    }
+
+    public FloatList getFloats(String key) {
+        int version = getConfig().getVersion();
+        FloatList values = (FloatList) getMemo(key, FLOAT, version);
+        if (values == null) {
+            List<Float> list = getFloatList(key);
+            float[] array = new float[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            values = new FloatList(array);
+            putMemo(key, FLOAT, version, values);
+        }
+        return values;
+    }
+
+    public BooleanList getBooleans(String key) {
+        int version = getConfig().getVersion();
+        BooleanList values = (BooleanList) getMemo(key, BOOLEAN, version);
+        if (values == null) {
+            List<Boolean> list = getBooleanList(key);
+            boolean[] array = new boolean[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            values = new BooleanList(array);
+            putMemo(key, BOOLEAN, version, values);
+        }
+        return values;
+    }
+
+    /**
+     * Gets a list of strings like {@link #getStringList(String)}, but read-only and cached
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getStrings(String key) {
+        int version = getConfig().getVersion();
+        List<String> values = (List<String>) getMemo(key, STRING, version);
+        if (values == null) {
+            values = Collections.unmodifiableList(getStringList(key));
+            putMemo(key, STRING, version, values);
+        }
+        return values;
+    }
+
+    private Object getMemo(String key, int type, int version) {
+        Map<String, Memo> memos = getConfig().getMemos().get(path);
+        Memo memo = memos != null ? memos.get(key) : null;
+        return memo != null && memo.version == version ? memo.values[type] : null;
+    }
+
+    // The version is read before converting, so a value converted while the configuration changed is never used
+    private void putMemo(String key, int type, int version, Object value) {
+        ConcurrentMap<String, ConcurrentMap<String, Memo>> sections = getConfig().getMemos();
+        ConcurrentMap<String, Memo> memos = sections.get(path);
+        if (memos == null) {
+            memos = new ConcurrentHashMap<>();
+            ConcurrentMap<String, Memo> existing = sections.putIfAbsent(path, memos);
+            if (existing != null) {
+                memos = existing;
+            }
+        }
+        Memo memo = memos.get(key);
+        if (memo == null || memo.version != version) {
+            memo = new Memo(version);
+            memos.put(key, memo);
+        }
+        memo.values[type] = value;
+    }
+
+    // The converted lists of a key, valid while the configuration is at the same version
+    static class Memo {
+
+        final int version;
+        final Object[] values = new Object[STRING + 1];
+
+        Memo(int version) {
+            this.version = version;
+        }
+
+    }
+
+    protected boolean isPrimitiveWrapper(Object input) {
+        return input instanceof Integer || input instanceof Boolean ||
+                input instanceof Character || input instanceof Byte ||
+                input instanceof Short || input instanceof Double ||
+                input instanceof Long || input instanceof Float;
+    }
+
+    // > Setters
+
+    /**
+     * Sets a key to a value. If the entry is already in the configuration, it will be
+     * overwritten. Objects that are missing along the path are created. Remember to
+     * save the configuration after you are done setting.
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void set(String key, Object value) {
+        put(getConfig().getEntries(), prefix, key, value);
+        getConfig().record(prefix, key, value);
+        getConfig().changed();
+    }
+
+}
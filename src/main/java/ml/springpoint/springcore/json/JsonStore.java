@@ -0,0 +1,427 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningScheduledExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import ml.springpoint.springcore.SpringPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Stores one JSON file per key, ie. the profile of each player, instead of one
+ * file for everything like {@link JsonConfig}. Files are spread over 256 folders
+ * by the hash of their key, and nothing is read until a key is loaded, so a store
+ * with hundreds of thousands of keys costs nothing on startup.
+ * <p/>
+ * Values are kept in a cache of a limited size. Changed values are marked dirty
+ * and written together every few seconds, and a dirty value is written before it
+ * is evicted from the cache. Files are read and written on the IO thread (see
+ * {@link JsonIO}), so a load always sees the last write of its key.
+ * <p/>
+ * A typical use is to load the profile of a player in the AsyncPlayerPreLoginEvent
+ * with <code>store.load(uuid).get()</code>, read and change it with {@link #get(Object)}
+ * and {@link #markDirty(Object)} while they are online, and {@link #unload(Object)}
+ * it when they quit. Values are serialized on the main thread, so only change them
+ * there. Dirty values that are evicted are kept aside until the next batch, so
+ * they are serialized on the main thread as well.
+ *
+ * @author SirFaizdat
+ */
+public class JsonStore<K, V> {
+
+    private static final long DEFAULT_WRITE_BEHIND = 5000L;
+    private static final Set<JsonStore<?, ?>> stores = Collections.newSetFromMap(
+            new ConcurrentHashMap<JsonStore<?, ?>, Boolean>());
+
+    private final SpringPlugin plugin;
+    private final File directory;
+    private final Class<V> type;
+    private final Cache<K, V> cache;
+    private final Set<K> dirty = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+    private final ConcurrentMap<K, V> evicted = new ConcurrentHashMap<>();
+    private final ConcurrentHashMultiset<K> removing = ConcurrentHashMultiset.create();
+    private volatile boolean closed;
+    private long writeBehind = DEFAULT_WRITE_BEHIND;
+    private BukkitTask flushTask;
+
+    /**
+     * Creates a new store.
+     *
+     * @param plugin      SpringPlugin instance
+     * @param directory   The folder the files will be stored in, ie. 'plugins/MyPlugin/players'
+     * @param type        The class of the values, serialized with {@link GsonFactory#getCompactGson()}
+     * @param maximumSize The most values to keep in memory. Make sure it is bigger than the
+     *                    amount of players that can be online.
+     */
+    public JsonStore(SpringPlugin plugin, File directory, Class<V> type, int maximumSize) {
+        this.plugin = plugin;
+        this.directory = directory;
+        this.type = type;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .removalListener(new RemovalListener<K, V>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<K, V> notification) {
+                        // Keep the changes of values that are pushed out of the cache for the next batch,
+                        // since this may run on any thread
+                        if (notification.wasEvicted() && dirty.remove(notification.getKey())) {
+                            evicted.put(notification.getKey(), notification.getValue());
+                            startFlushTask();
+                        }
+                    }
+                })
+                .build();
+        stores.add(this);
+    }
+
+    // > Loading
+
+    /**
+     * Loads the value of a key on the IO thread, if it is not in memory already.
+     *
+     * @param key The key
+     * @return The future of the value, which is null if the key has no file
+     */
+    public ListenableFuture<V> load(final K key) {
+        checkOpen();
+        V value = getCached(key);
+        if (value != null) {
+            return Futures.immediateFuture(value);
+        }
+        return executor().submit(new Callable<V>() {
+            @Override
+            public V call() throws IOException {
+                V cached = getCached(key);
+                if (cached != null) {
+                    return cached; // Loaded while this was queued
+                }
+                if (removing.contains(key)) {
+                    return null; // Removed while this was queued, the file is about to be deleted
+                }
+                File file = getFile(key);
+                if (!file.exists()) {
+                    return null;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                    V value = GsonFactory.getCompactGson().fromJson(reader, type);
+                    if (value == null) {
+                        return null;
+                    }
+                    V previous = cache.asMap().putIfAbsent(key, value);
+                    return previous != null ? previous : value;
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets a value that is in memory. This never touches the disk.
+     *
+     * @param key The key
+     * @return The value, or null if it is not loaded
+     */
+    public V get(K key) {
+        V value = cache.getIfPresent(key);
+        return value != null ? value : evicted.get(key);
+    }
+
+    // Gets a value in memory, putting an evicted one that was not written yet back into the cache
+    private V getCached(K key) {
+        V value = cache.getIfPresent(key);
+        if (value == null) {
+            value = evicted.remove(key);
+            if (value != null) {
+                dirty.add(key);
+                V previous = cache.asMap().putIfAbsent(key, value);
+                return previous != null ? previous : value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Gets a value that is in memory, or loads it and waits for it.
+     * Don't call this on the main thread.
+     *
+     * @param key The key
+     * @return The value, or null if the key has no file
+     */
+    public V getNow(K key) throws IOException {
+        try {
+            return load(key).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading " + key, e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to load " + key, e.getCause());
+        }
+    }
+
+    // > Changing
+
+    /**
+     * Sets the value of a key, which is written with the next batch.
+     *
+     * @param key   The key
+     * @param value The value
+     */
+    public void put(K key, V value) {
+        checkOpen();
+        evicted.remove(key);
+        cache.put(key, value);
+        markDirty(key);
+    }
+
+    /**
+     * Marks the value of a key as changed, so that it is written with the next batch.
+     *
+     * @param key The key
+     */
+    public void markDirty(K key) {
+        checkOpen();
+        dirty.add(key);
+        startFlushTask();
+    }
+
+    /**
+     * Removes a key from memory and deletes its file.
+     *
+     * @param key The key
+     */
+    public void remove(final K key) {
+        checkOpen();
+        removing.add(key); // Loads that are already queued must not bring the value back
+        dirty.remove(key);
+        evicted.remove(key);
+        cache.invalidate(key);
+        executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Files.deleteIfExists(getFile(key).toPath());
+                } catch (IOException e) {
+                    plugin.log("&cError: &7Failed to delete &c%s&7. Stack trace:", getFile(key).getName());
+                    e.printStackTrace();
+                } finally {
+                    removing.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the value of a key if it changed, and removes it from memory, ie. when
+     * the player quits.
+     *
+     * @param key The key
+     */
+    public void unload(K key) {
+        V value = cache.getIfPresent(key);
+        if (value == null || !dirty.remove(key)) {
+            value = evicted.remove(key);
+        }
+        if (value != null) {
+            write(key, value);
+        }
+        cache.invalidate(key);
+    }
+
+    // > Writing
+
+    /**
+     * Sets how often the changed values are written.
+     *
+     * @param window The time in milliseconds, 5000 by default
+     */
+    public synchronized void setWriteBehind(long window) {
+        this.writeBehind = window;
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+            startFlushTask();
+        }
+    }
+
+    private synchronized void startFlushTask() {
+        if (flushTask == null && !closed && plugin.isEnabled()) {
+            long period = Math.max(1L, writeBehind / 50L);
+            flushTask = Bukkit.getScheduler().runTaskTimer(plugin, new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, period, period);
+        }
+    }
+
+    /**
+     * Writes every changed value in one batch on the IO thread. The values are
+     * serialized on the calling thread.
+     */
+    public void flush() {
+        if (dirty.isEmpty() && evicted.isEmpty()) {
+            return;
+        }
+        final Map<File, String> batch = new LinkedHashMap<>();
+        for (K key : new ArrayList<>(dirty)) {
+            // Get the value first, so that an eviction in between is either written here or by the cache
+            V value = cache.getIfPresent(key);
+            if (dirty.remove(key) && value != null) {
+                batch.put(getFile(key), GsonFactory.getCompactGson().toJson(value));
+            }
+        }
+        for (K key : new ArrayList<>(evicted.keySet())) {
+            V value = evicted.remove(key);
+            if (value != null) {
+                batch.put(getFile(key), GsonFactory.getCompactGson().toJson(value));
+            }
+        }
+        executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Map.Entry<File, String> entry : batch.entrySet()) {
+                    write(entry.getKey(), entry.getValue());
+                }
+            }
+        });
+    }
+
+    private void write(K key, V value) {
+        final File file = getFile(key);
+        final String json = GsonFactory.getCompactGson().toJson(value);
+        executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                write(file, json);
+            }
+        });
+    }
+
+    // Runs on the IO thread
+    private void write(File file, String json) {
+        try {
+            File parent = file.getParentFile();
+            if (!parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create " + parent);
+            }
+            JsonIO.writeAtomically(file, json);
+        } catch (IOException e) {
+            plugin.log("&cError: &7Failed to save &c%s&7. Stack trace:", file.getName());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes every changed value and stops the write-behind task. Values can still
+     * be read and unloaded afterwards, but loading, changing or removing them throws
+     * an IllegalStateException.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+        stores.remove(this);
+    }
+
+    /**
+     * Closes every store of a plugin, ie. when it disables. Use
+     * {@link JsonConfig#flushAll(long)} or {@link JsonIO#await(long)} to wait for the writes.
+     *
+     * @param plugin The plugin
+     */
+    public static void closeAll(SpringPlugin plugin) {
+        for (JsonStore<?, ?> store : stores) {
+            if (store.plugin == plugin) {
+                store.close();
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("This store has been closed");
+        }
+    }
+
+    // The IO thread is started again after SpringCore reloads, so don't keep a reference to it
+    private static ListeningScheduledExecutorService executor() {
+        return MoreExecutors.listeningDecorator(JsonIO.getExecutor());
+    }
+
+    // > Files
+
+    /**
+     * Gets the file of a key, ie. 'players/3f/069a79f4-44e9-4726-a5be-fca90e38aaf5.json'
+     *
+     * @param key The key, turned into a file name with its toString()
+     */
+    public File getFile(K key) {
+        String name = String.valueOf(key);
+        int hash = Hashing.murmur3_32().hashString(name, StandardCharsets.UTF_8).asInt() & 0xFF;
+        try {
+            name = URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e); // UTF-8 is always supported
+        }
+        return new File(new File(directory, String.format("%02x", hash)), name + ".json");
+    }
+
+    /**
+     * Gets the amount of values in memory
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Gets the amount of values that changed since the last write
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.json;
+
+import com.google.common.hash.HashCode;
+import ml.springpoint.springcore.SpringPlugin;
+import ml.springpoint.springcore.feature.Feature;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads configurations when their files are edited while the server is running.
+ * The configuration and messages of the plugin are watched as soon as this feature
+ * is used, and those of modules when they are loaded afterwards.
+ * <p/>
+ * Editors often write a file several times when saving, so a file is only reloaded
+ * once it has not changed for the debounce time. The file is parsed on the IO thread
+ * (see {@link JsonIO}), and the new entries are swapped in on the main thread, where
+ * the {@link JsonChangeListener}s of the configuration are called with the difference.
+ * Saves made by the configuration itself are recognized by the hash of their
+ * contents and ignored, and saves that were still queued are dropped so they
+ * don't overwrite the edit.
+ *
+ * @author SirFaizdat
+ */
+public class JsonWatcher implements Feature {
+
+    private static final long DEFAULT_DEBOUNCE = 500L;
+
+    private final SpringPlugin plugin;
+    private final ConcurrentMap<Path, JsonConfig> configs = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Path, ScheduledFuture<?>> pending = new ConcurrentHashMap<>();
+    private final List<Path> directories = new ArrayList<>();
+    private volatile long debounce = DEFAULT_DEBOUNCE;
+    private WatchService service;
+
+    public JsonWatcher(SpringPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void init() {
+        if (service != null) {
+            return;
+        }
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            plugin.log("&cError: &7Failed to watch the configurations for changes. Stack trace:");
+            e.printStackTrace();
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                poll(service);
+            }
+        }, "SpringCore JSON Watcher - " + plugin.getName());
+        thread.setDaemon(true);
+        thread.start();
+
+        watch(plugin.getConfiguration());
+        watch(plugin.getMessages());
+    }
+
+    @Override
+    public void deinit() {
+        if (service == null) {
+            return;
+        }
+        try {
+            service.close(); // Stops the watcher thread
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        service = null;
+        for (ScheduledFuture<?> future : pending.values()) {
+            future.cancel(false);
+        }
+        pending.clear();
+        configs.clear();
+        synchronized (directories) {
+            directories.clear();
+        }
+    }
+
+    /**
+     * Whether this feature is in use
+     */
+    public boolean isRunning() {
+        return service != null;
+    }
+
+    /**
+     * Reloads a configuration whenever its file is edited.
+     *
+     * @param config The configuration
+     */
+    public void watch(JsonConfig config) {
+        if (service == null || config == null) {
+            return;
+        }
+        Path file = config.getFile().toPath().toAbsolutePath();
+        Path directory = file.getParent();
+        synchronized (directories) {
+            if (!directories.contains(directory)) {
+                try {
+                    directory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY);
+                    directories.add(directory);
+                } catch (IOException e) {
+                    plugin.log("&cError: &7Failed to watch the folder &c%s&7. Stack trace:", directory);
+                    e.printStackTrace();
+                    return;
+                }
+            }
+        }
+        configs.put(file, config);
+    }
+
+    /**
+     * Stops reloading a configuration when its file is edited.
+     *
+     * @param config The configuration
+     */
+    public void unwatch(JsonConfig config) {
+        Path file = config.getFile().toPath().toAbsolutePath();
+        configs.remove(file);
+        ScheduledFuture<?> future = pending.remove(file);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Sets how long a file must stay unchanged before it is reloaded.
+     *
+     * @param debounce The time in milliseconds, 500 by default
+     */
+    public void setDebounce(long debounce) {
+        this.debounce = debounce;
+    }
+
+    private void poll(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path directory = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // Events were lost, check every file in the folder
+                        for (Path file : configs.keySet()) {
+                            if (file.getParent().equals(directory)) {
+                                schedule(file);
+                            }
+                        }
+                    } else {
+                        schedule(directory.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignored) {
+            // The feature was de-initialized
+        }
+    }
+
+    // Restarts the debounce time of a file
+    private void schedule(final Path file) {
+        if (!configs.containsKey(file)) {
+            return;
+        }
+        ScheduledFuture<?> future = JsonIO.getExecutor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                pending.remove(file);
+                parse(file);
+            }
+        }, debounce, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> previous = pending.put(file, future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    // Runs on the IO thread
+    private void parse(Path file) {
+        final JsonConfig config = configs.get(file);
+        if (config == null) {
+            return; // Not watched anymore
+        }
+        final Map<String, Object> entries;
+        try {
+            // Compare the contents rather than the modification time, which may only have whole seconds
+            HashCode hash = JsonConfig.hash(ByteBuffer.wrap(Files.readAllBytes(file)));
+            if (hash.equals(config.getLastWritten())) {
+                return; // Saved by the configuration itself
+            }
+            entries = JsonLoader.load(file.toFile());
+        } catch (Exception e) { // Keep the old entries if the edit broke the file
+            plugin.log("&cError: &7Failed to reload the configuration &c%s&7: %s", file.getFileName(), e.getMessage());
+            return;
+        }
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        Bukkit.getScheduler().runTask(plugin, new Runnable() {
+            @Override
+            public void run() {
+                config.reload(entries);
+            }
+        });
+    }
+
+}
@@ -20,6 +20,7 @@ package ml.springpoint.springcore.module;
 import ml.springpoint.springcore.SpringPlugin;
 import ml.springpoint.springcore.json.JsonConfig;
 import ml.springpoint.springcore.json.JsonMessages;
+import ml.springpoint.springcore.json.JsonWatcher;
 
 import java.io.File;
 
@@ -55,6 +56,11 @@ public abstract class Module {
             return;
         }
 
+        // Reload the configuration files of the module when they are edited, if the plugin uses the watcher
+        JsonWatcher watcher = (JsonWatcher) getParentPlugin().getFeatureManager().get("watcher");
+        watcher.watch(config);
+        watcher.watch(messages);
+
         getParentPlugin().log("&7Enabled module &3%s&7.", getName());
     }
 
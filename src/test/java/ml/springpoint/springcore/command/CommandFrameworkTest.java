@@ -0,0 +1,139 @@
+/*
+ *  Copyright (C) 2015 Springpoint Software and Contributors
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ml.springpoint.springcore.command;
+
+import ml.springpoint.springcore.SpringPlugin;
+import org.bukkit.Server;
+import org.bukkit.command.SimpleCommandMap;
+import org.bukkit.plugin.SimplePluginManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that unregistering lets go of the command objects, so that a reloaded
+ * plugin doesn't keep its old classes loaded through them.
+ *
+ * @author SirFaizdat
+ */
+public class CommandFrameworkTest {
+
+    private SpringPlugin plugin;
+    private SimpleCommandMap map;
+
+    @Before
+    public void setUp() throws Exception {
+        Server server = mock(Server.class);
+        map = new SimpleCommandMap(server);
+        SimplePluginManager manager = mock(SimplePluginManager.class);
+        Field field = SimplePluginManager.class.getDeclaredField("commandMap");
+        field.setAccessible(true);
+        field.set(manager, map);
+        when(server.getPluginManager()).thenReturn(manager);
+        plugin = mock(SpringPlugin.class);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getName()).thenReturn("LeakTest");
+    }
+
+    @After
+    public void tearDown() {
+        for (CommandFramework framework : CommandFramework.getFrameworks()) {
+            framework.unregisterAll();
+        }
+    }
+
+    @Test
+    public void unregisterAllReleasesCommands() {
+        CommandFramework framework = new CommandFramework(plugin);
+        WeakReference<Object> commands = register(framework);
+        assertNotNull(map.getCommand("leaktest"));
+
+        framework.unregisterAll();
+        assertNull(map.getCommand("leaktest"));
+        assertNull(map.getCommand("lt"));
+
+        // Reload: a new framework registers a new instance of the same commands
+        CommandFramework reloaded = new CommandFramework(plugin);
+        register(reloaded);
+        assertNotNull(map.getCommand("leaktest"));
+        assertTrue("The old commands are still reachable", isCollected(commands));
+    }
+
+    @Test
+    public void unregisterCommandReleasesCommands() {
+        CommandFramework framework = new CommandFramework(plugin);
+        Commands old = new Commands();
+        framework.registerCommand(old);
+        WeakReference<Object> commands = new WeakReference<Object>(old);
+
+        framework.unregisterCommand(old);
+        old = null;
+        assertNull(map.getCommand("leaktest"));
+
+        register(framework);
+        assertNotNull(map.getCommand("leaktest"));
+        assertTrue("The old commands are still reachable", isCollected(commands));
+    }
+
+    // Registered in a method of its own, so that no local variable of the test keeps it alive
+    private static WeakReference<Object> register(CommandFramework framework) {
+        Commands commands = new Commands();
+        framework.registerCommand(commands);
+        return new WeakReference<Object>(commands);
+    }
+
+    private static boolean isCollected(WeakReference<?> reference) {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return reference.get() == null;
+    }
+
+    public static class Commands {
+
+        @Command(name = "leaktest", aliases = {"lt"})
+        public void test(CommandArgs args) {
+        }
+
+        @Command(name = "leaktest.sub", cooldown = 1000)
+        public void sub(CommandArgs args, int amount) {
+        }
+
+        @Completer(name = "leaktest")
+        public List<String> complete(CommandArgs args) {
+            return Collections.emptyList();
+        }
+
+    }
+
+}